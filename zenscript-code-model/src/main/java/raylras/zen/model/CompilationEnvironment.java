@@ -5,14 +5,20 @@ import org.slf4j.LoggerFactory;
 import raylras.zen.bracket.BracketHandlerService;
 import raylras.zen.model.symbol.ClassSymbol;
 import raylras.zen.model.symbol.ExpandFunctionSymbol;
+import raylras.zen.model.symbol.Operator;
+import raylras.zen.model.symbol.OperatorFunctionSymbol;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.type.ClassType;
+import raylras.zen.model.type.SubtypeCache;
 import raylras.zen.model.type.Type;
+import raylras.zen.util.Overloads;
+import raylras.zen.util.PackageTree;
 import raylras.zen.util.PathUtils;
 
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -26,7 +32,13 @@ public class CompilationEnvironment {
 
     private final Path root;
     private final Path generatedRoot;
-    private final Map<Path, CompilationUnit> unitMap = new HashMap<>();
+    private final Map<Path, CompilationUnit> unitMap = new ConcurrentHashMap<>();
+    private final SymbolIndex symbolIndex = new SymbolIndex();
+    private final ExpandMemberIndex expandMemberIndex = new ExpandMemberIndex(symbolIndex);
+    private final DependencyGraph dependencyGraph = new DependencyGraph();
+    private final OperatorIndex operatorIndex = new OperatorIndex(this);
+    private final OverloadIndex overloadIndex = new OverloadIndex(this);
+    private final SubtypeCache subtypeCache = new SubtypeCache(symbolIndex::getGeneration);
     private final BracketHandlerService bracketHandlerService = new BracketHandlerService(this);
 
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -39,7 +51,12 @@ public class CompilationEnvironment {
 
     public CompilationUnit createUnit(Path unitPath) {
         CompilationUnit unit = new CompilationUnit(unitPath, this);
-        unitMap.put(unitPath, unit);
+        CompilationUnit oldUnit = unitMap.put(unitPath, unit);
+        if (oldUnit != null) {
+            oldUnit.invalidateTypes();
+            symbolIndex.remove(oldUnit);
+            dependencyGraph.remove(oldUnit).forEach(CompilationUnit::invalidateTypes);
+        }
         return unit;
     }
 
@@ -48,7 +65,41 @@ public class CompilationEnvironment {
     }
 
     public void removeUnit(Path unitPath) {
-        unitMap.remove(unitPath);
+        CompilationUnit unit = unitMap.remove(unitPath);
+        if (unit != null) {
+            unit.invalidateTypes();
+            symbolIndex.remove(unit);
+            dependencyGraph.remove(unit).forEach(CompilationUnit::invalidateTypes);
+        }
+    }
+
+    public void clearUnits() {
+        unitMap.clear();
+        symbolIndex.clear();
+        dependencyGraph.clear();
+    }
+
+    /**
+     * Indexes a unit loaded along with the env, before anything has been resolved against it.
+     * Unlike {@link #reindex(CompilationUnit)}, no unit is invalidated.
+     */
+    public void index(CompilationUnit unit) {
+        symbolIndex.update(unit);
+        dependencyGraph.add(unit);
+    }
+
+    /**
+     * Updates the indexes after the declarations of the unit have been resolved.
+     * The dependents are only invalidated when the declarations visible to them have changed.
+     *
+     * @return the units that may be affected by the change of the unit, apart from the unit itself
+     */
+    public Set<CompilationUnit> reindex(CompilationUnit unit) {
+        boolean contributionChanged = symbolIndex.update(unit);
+        Set<CompilationUnit> dependents = dependencyGraph.update(unit, contributionChanged);
+        unit.invalidateTypes();
+        dependents.forEach(CompilationUnit::invalidateTypes);
+        return dependents;
     }
 
     public Collection<CompilationUnit> getUnits() {
@@ -59,34 +110,50 @@ public class CompilationEnvironment {
         return unitMap;
     }
 
+    public SymbolIndex getSymbolIndex() {
+        return symbolIndex;
+    }
+
+    public DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    public SubtypeCache getSubtypeCache() {
+        return subtypeCache;
+    }
+
     public List<Symbol> getGlobalSymbols() {
-        return getUnits().stream()
-                .flatMap(unit -> unit.getTopLevelSymbols().stream())
-                .filter(symbol -> symbol.isModifiedBy(Symbol.Modifier.GLOBAL))
-                .collect(Collectors.toList());
+        return symbolIndex.getGlobals();
+    }
+
+    public List<Symbol> getGlobalSymbols(String name) {
+        return symbolIndex.getGlobals(name);
     }
 
     public List<ExpandFunctionSymbol> getExpandFunctions() {
-        return getUnits().stream()
-                .flatMap(unit -> unit.getTopLevelSymbols().stream())
-                .filter(ExpandFunctionSymbol.class::isInstance)
-                .map(ExpandFunctionSymbol.class::cast)
-                .toList();
+        return symbolIndex.getExpandFunctions();
+    }
+
+    public ClassSymbol getClassSymbol(String qualifiedName) {
+        return symbolIndex.getClass(qualifiedName);
+    }
+
+    public ClassType getClassType(String qualifiedName) {
+        ClassSymbol symbol = symbolIndex.getClass(qualifiedName);
+        return (symbol != null) ? symbol.getType() : null;
+    }
+
+    public PackageTree<ClassSymbol> getPackageTree() {
+        return symbolIndex.getPackageTree();
     }
 
     public Map<String, ClassType> getClassTypeMap() {
-        return getUnits().stream()
-                .flatMap(unit -> unit.getTopLevelSymbols().stream())
-                .filter(ClassSymbol.class::isInstance)
-                .map(ClassSymbol.class::cast)
+        return symbolIndex.getClasses().stream()
                 .collect(Collectors.toMap(ClassSymbol::getQualifiedName, ClassSymbol::getType));
     }
 
     public Map<String, ClassSymbol> getClassSymbolMap() {
-        return getUnits().stream()
-                .flatMap(unit -> unit.getTopLevelSymbols().stream())
-                .filter(ClassSymbol.class::isInstance)
-                .map(ClassSymbol.class::cast)
+        return symbolIndex.getClasses().stream()
                 .collect(Collectors.toMap(ClassSymbol::getQualifiedName, Function.identity()));
     }
 
@@ -103,17 +170,31 @@ public class CompilationEnvironment {
     }
 
     public List<Symbol> getExpandMembers(Type type) {
-        List<Symbol> expands = getExpandFunctions().stream()
-                .filter(symbol -> type.isInheritedFrom(symbol.getExpandingType()))
-                .map(Symbol.class::cast)
-                .toList();
+        List<Symbol> expands = expandMemberIndex.getExpandFunctions(type);
         if (type instanceof ClassType) {
             return expands;
-        } else {
-            List<Symbol> symbols = new ArrayList<>(expands);
-            symbols.addAll(getPrimitiveTypeExpandMembers(type));
-            return symbols;
         }
+        Collection<Symbol> primitiveExpands = getPrimitiveTypeExpandMembers(type);
+        if (primitiveExpands.isEmpty()) {
+            return expands;
+        }
+        List<Symbol> symbols = new ArrayList<>(expands);
+        symbols.addAll(primitiveExpands);
+        return symbols;
+    }
+
+    /**
+     * @return the operators of the type, declared by the type itself or by an expansion
+     */
+    public List<OperatorFunctionSymbol> getOperators(Type type, Operator operator) {
+        return operatorIndex.getOperators(type, operator);
+    }
+
+    /**
+     * @return the executable members of the type with the name, which caches the calls resolved against them
+     */
+    public Overloads getOverloads(Type type, String name) {
+        return overloadIndex.getOverloads(type, name);
     }
 
     public ReentrantReadWriteLock.ReadLock readLock() {
@@ -124,6 +205,13 @@ public class CompilationEnvironment {
         return readWriteLock.writeLock();
     }
 
+    /**
+     * @return true if a thread is waiting for the lock, which the long reads in the background should yield to
+     */
+    public boolean hasQueuedThreads() {
+        return readWriteLock.hasQueuedThreads();
+    }
+
     @Override
     public String toString() {
         return root.toString();
@@ -131,8 +219,7 @@ public class CompilationEnvironment {
 
     private Collection<Symbol> getPrimitiveTypeExpandMembers(Type type) {
         String typeName = type.toString();
-        Map<String, ClassType> classTypeMap = getClassTypeMap();
-        ClassType dumpClassType = classTypeMap.get(typeName);
+        ClassType dumpClassType = getClassType(typeName);
         return dumpClassType != null ? dumpClassType.getSymbols() : Collections.emptyList();
     }
 
@@ -1,17 +1,24 @@
 package raylras.zen.model;
 
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import raylras.zen.model.parser.ZenScriptLexer;
 import raylras.zen.model.scope.Scope;
 import raylras.zen.model.symbol.Symbol;
+import raylras.zen.model.type.Type;
+import raylras.zen.util.ParseStatistics;
 import raylras.zen.util.PathUtils;
+import raylras.zen.util.PositionIndex;
+import raylras.zen.util.SyntaxError;
+import raylras.zen.util.TokenTable;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class CompilationUnit implements SymbolProvider {
@@ -24,9 +31,14 @@ public class CompilationUnit implements SymbolProvider {
     private final String qualifiedName;
     private final Map<ParseTree, Scope> scopeProperties = new IdentityHashMap<>();
     private final Map<ParseTree, Symbol> symbolProperties = new IdentityHashMap<>();
+    private final ParseStatistics parseStatistics = new ParseStatistics();
+    private volatile Map<ParseTree, Type> typeCache = new ConcurrentHashMap<>();
+    private final AtomicLong typeStamp = new AtomicLong();
 
-    private CommonTokenStream tokenStream;
+    private TokenTable tokenTable;
     private ParseTree parseTree;
+    private List<SyntaxError> syntaxErrors = List.of();
+    private volatile PositionIndex positionIndex;
 
     public CompilationUnit(Path path, CompilationEnvironment env) {
         this.path = path;
@@ -54,6 +66,10 @@ public class CompilationUnit implements SymbolProvider {
         scopeProperties.put(scope.getCst(), scope);
     }
 
+    public Scope removeScope(ParseTree cst) {
+        return scopeProperties.remove(cst);
+    }
+
     public Symbol getSymbol(ParseTree cst) {
         return symbolProperties.get(cst);
     }
@@ -71,6 +87,10 @@ public class CompilationUnit implements SymbolProvider {
         symbolProperties.put(cst, symbol);
     }
 
+    public Symbol removeSymbol(ParseTree cst) {
+        return symbolProperties.remove(cst);
+    }
+
     public Collection<Scope> getScopes() {
         return scopeProperties.values();
     }
@@ -85,7 +105,7 @@ public class CompilationUnit implements SymbolProvider {
     }
 
     public List<Preprocessor> getPreprocessors() {
-        List<Token> tokens = tokenStream.getHiddenTokensToRight(0, ZenScriptLexer.PREPROCESSOR_CHANNEL);
+        List<Token> tokens = tokenTable.getHiddenTokensToRight(0, ZenScriptLexer.PREPROCESSOR_CHANNEL);
         return tokens.stream()
                 .map(Token::getText)
                 .map(Preprocessor::create)
@@ -109,15 +129,77 @@ public class CompilationUnit implements SymbolProvider {
     }
 
     public void setParseTree(ParseTree parseTree) {
+        // the properties belong to the nodes of the old tree
+        scopeProperties.clear();
+        symbolProperties.clear();
+        invalidateTypes();
         this.parseTree = parseTree;
+        this.positionIndex = null;
+    }
+
+    public TokenTable getTokenTable() {
+        return tokenTable;
+    }
+
+    public void setTokenTable(TokenTable tokenTable) {
+        this.tokenTable = tokenTable;
+        // the tree is modified in place by the incremental reparsing, along with the tokens
+        this.positionIndex = null;
+    }
+
+    /**
+     * Built on the first lookup after each parse.
+     */
+    public PositionIndex getPositionIndex() {
+        PositionIndex index = positionIndex;
+        if (index == null || index.getRoot() != parseTree) {
+            index = PositionIndex.of(parseTree);
+            positionIndex = index;
+        }
+        return index;
+    }
+
+    public TokenStream getTokenStream() {
+        return tokenTable.asTokenStream();
+    }
+
+    /**
+     * The types resolved by {@link raylras.zen.model.resolve.TypeResolver}, by the nodes of this unit.
+     */
+    public Map<ParseTree, Type> getTypeCache() {
+        return typeCache;
+    }
+
+    /**
+     * Discards the resolved types, which may be stale once this unit or one of its dependencies has changed.
+     * A type being resolved meanwhile goes into the discarded cache.
+     */
+    public void invalidateTypes() {
+        typeCache = new ConcurrentHashMap<>();
+        typeStamp.incrementAndGet();
+    }
+
+    /**
+     * Changes whenever the types are invalidated, which lets the caches outside this unit know when to be rebuilt.
+     */
+    public long getTypeStamp() {
+        return typeStamp.get();
+    }
+
+    public ParseStatistics getParseStatistics() {
+        return parseStatistics;
+    }
+
+    public int getSyntaxErrorCount() {
+        return syntaxErrors.size();
     }
 
-    public CommonTokenStream getTokenStream() {
-        return tokenStream;
+    public List<SyntaxError> getSyntaxErrors() {
+        return syntaxErrors;
     }
 
-    public void setTokenStream(CommonTokenStream tokenStream) {
-        this.tokenStream = tokenStream;
+    public void setSyntaxErrors(List<SyntaxError> syntaxErrors) {
+        this.syntaxErrors = syntaxErrors;
     }
 
     public void accept(Visitor<?> visitor) {
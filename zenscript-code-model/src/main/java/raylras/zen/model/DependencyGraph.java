@@ -0,0 +1,274 @@
+package raylras.zen.model;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import raylras.zen.model.parser.ZenScriptLexer;
+import raylras.zen.model.parser.ZenScriptParser.ConstructorBodyContext;
+import raylras.zen.model.parser.ZenScriptParser.FunctionBodyContext;
+import raylras.zen.model.symbol.ClassSymbol;
+import raylras.zen.model.symbol.ExpandFunctionSymbol;
+import raylras.zen.model.symbol.ImportSymbol;
+import raylras.zen.model.symbol.ParseTreeLocatable;
+import raylras.zen.model.symbol.Symbol;
+import raylras.zen.util.TokenTable;
+
+import java.util.*;
+
+/**
+ * Records which units of an env depend on which others.
+ * <p>
+ * A unit exports the names of its globals, classes, expand functions and top-level symbols,
+ * and references the names it imports or mentions, either simple or qualified.
+ * A unit depends on every unit exporting a name it references, so the edges follow the declarations as they change,
+ * and only the dependents of a changed unit need to be checked again.
+ * <p>
+ * The dependents are left alone when an edit keeps the declarations of the unit, such as an edit inside a function body.
+ */
+public class DependencyGraph {
+
+    private final Map<CompilationUnit, Set<String>> exports = new HashMap<>();
+    private final Map<CompilationUnit, Set<String>> references = new HashMap<>();
+    private final Map<String, Set<CompilationUnit>> exportedBy = new HashMap<>();
+    private final Map<String, Set<CompilationUnit>> referencedBy = new HashMap<>();
+    private final Map<CompilationUnit, Long> signatures = new HashMap<>();
+
+    /**
+     * Records the exports and references of a unit loaded along with its env.
+     * Nothing has been resolved against the unit yet, so its dependents are not collected.
+     */
+    public void add(CompilationUnit unit) {
+        Set<String> unitExports = collectExports(unit);
+        Set<String> unitReferences = collectReferences(unit);
+        // the generated units are never edited, so their signatures are only computed once they are reloaded
+        Long signature = unit.isGenerated() ? null : computeSignature(unit);
+        synchronized (this) {
+            unlink(unit);
+            link(unit, unitExports, unitReferences);
+            if (signature != null) {
+                signatures.put(unit, signature);
+            }
+        }
+    }
+
+    /**
+     * Records the current exports and references of the unit.
+     *
+     * @param contributionChanged whether the symbols the unit contributes to the env have been replaced,
+     *                            the dependents may still hold on to the old ones
+     * @return the transitive dependents of the unit, including the ones of the names it no longer exports,
+     * or nothing if neither the exported names nor the declarations have changed
+     */
+    public Set<CompilationUnit> update(CompilationUnit unit, boolean contributionChanged) {
+        Set<String> newExports = collectExports(unit);
+        Set<String> newReferences = collectReferences(unit);
+        long newSignature = computeSignature(unit);
+        synchronized (this) {
+            Set<String> oldExports = unlink(unit);
+            Long oldSignature = signatures.put(unit, newSignature);
+            link(unit, newExports, newReferences);
+            if (!contributionChanged && oldExports.equals(newExports) && Objects.equals(oldSignature, newSignature)) {
+                return Set.of();
+            }
+
+            Set<String> changedNames = new HashSet<>(oldExports);
+            changedNames.addAll(newExports);
+            return collectDependents(unit, changedNames);
+        }
+    }
+
+    /**
+     * @return the transitive dependents of the removed unit
+     */
+    public synchronized Set<CompilationUnit> remove(CompilationUnit unit) {
+        Set<CompilationUnit> dependents = collectDependents(unit, exports.getOrDefault(unit, Set.of()));
+        unlink(unit);
+        signatures.remove(unit);
+        return dependents;
+    }
+
+    public synchronized void clear() {
+        exports.clear();
+        references.clear();
+        exportedBy.clear();
+        referencedBy.clear();
+        signatures.clear();
+    }
+
+    /**
+     * @return the units exporting a name referenced by the unit
+     */
+    public synchronized Set<CompilationUnit> getDependencies(CompilationUnit unit) {
+        Set<CompilationUnit> dependencies = new LinkedHashSet<>();
+        for (String name : references.getOrDefault(unit, Set.of())) {
+            dependencies.addAll(exportedBy.getOrDefault(name, Set.of()));
+        }
+        dependencies.remove(unit);
+        return dependencies;
+    }
+
+    /**
+     * @return the units referencing a name exported by the unit
+     */
+    public synchronized Set<CompilationUnit> getDependents(CompilationUnit unit) {
+        Set<CompilationUnit> dependents = new LinkedHashSet<>();
+        for (String name : exports.getOrDefault(unit, Set.of())) {
+            dependents.addAll(referencedBy.getOrDefault(name, Set.of()));
+        }
+        dependents.remove(unit);
+        return dependents;
+    }
+
+    /**
+     * @return the units depending on the unit, directly or through other units
+     */
+    public synchronized Set<CompilationUnit> getTransitiveDependents(CompilationUnit unit) {
+        return collectDependents(unit, exports.getOrDefault(unit, Set.of()));
+    }
+
+    /* Private Methods */
+
+    private Set<CompilationUnit> collectDependents(CompilationUnit unit, Set<String> names) {
+        Set<CompilationUnit> dependents = new LinkedHashSet<>();
+        Deque<CompilationUnit> queue = new ArrayDeque<>();
+        for (String name : names) {
+            queue.addAll(referencedBy.getOrDefault(name, Set.of()));
+        }
+        while (!queue.isEmpty()) {
+            CompilationUnit dependent = queue.poll();
+            if (dependent != unit && dependents.add(dependent)) {
+                for (String name : exports.getOrDefault(dependent, Set.of())) {
+                    queue.addAll(referencedBy.getOrDefault(name, Set.of()));
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private void link(CompilationUnit unit, Set<String> unitExports, Set<String> unitReferences) {
+        exports.put(unit, unitExports);
+        references.put(unit, unitReferences);
+        for (String name : unitExports) {
+            exportedBy.computeIfAbsent(name, key -> new HashSet<>()).add(unit);
+        }
+        for (String name : unitReferences) {
+            referencedBy.computeIfAbsent(name, key -> new HashSet<>()).add(unit);
+        }
+    }
+
+    private Set<String> unlink(CompilationUnit unit) {
+        Set<String> oldExports = exports.remove(unit);
+        Set<String> oldReferences = references.remove(unit);
+        if (oldExports == null) {
+            return Set.of();
+        }
+        oldExports.forEach(name -> removeEdge(exportedBy, name, unit));
+        oldReferences.forEach(name -> removeEdge(referencedBy, name, unit));
+        return oldExports;
+    }
+
+    private static void removeEdge(Map<String, Set<CompilationUnit>> edges, String name, CompilationUnit unit) {
+        Set<CompilationUnit> units = edges.get(name);
+        if (units != null && units.remove(unit) && units.isEmpty()) {
+            edges.remove(name);
+        }
+    }
+
+    private static Set<String> collectExports(CompilationUnit unit) {
+        Set<String> names = new HashSet<>();
+        if (unit.getParseTree() == null || unit.getScope(unit.getParseTree()) == null) {
+            return names;
+        }
+        for (Symbol symbol : unit.getTopLevelSymbols()) {
+            if (symbol instanceof ImportSymbol) {
+                continue;
+            }
+            if (symbol instanceof ClassSymbol classSymbol) {
+                names.add(classSymbol.getQualifiedName());
+            } else if (symbol instanceof ExpandFunctionSymbol || symbol.isGlobal()) {
+                names.add(symbol.getName());
+            }
+            names.add(unit.getQualifiedName() + "." + symbol.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Hashes the imports and the exported declarations of the unit, without the function bodies,
+     * which is everything the types seen by the dependents are resolved from.
+     */
+    private static long computeSignature(CompilationUnit unit) {
+        long signature = 1;
+        if (unit.getParseTree() == null || unit.getScope(unit.getParseTree()) == null) {
+            return signature;
+        }
+        for (Symbol symbol : unit.getTopLevelSymbols()) {
+            if (symbol instanceof ParseTreeLocatable locatable && locatable.getCst() != null) {
+                signature = hashDeclaration(signature, locatable.getCst());
+            }
+        }
+        return signature;
+    }
+
+    private static long hashDeclaration(long hash, ParseTree cst) {
+        Deque<ParseTree> stack = new ArrayDeque<>();
+        stack.push(cst);
+        while (!stack.isEmpty()) {
+            ParseTree node = stack.pop();
+            if (node instanceof TerminalNode terminal) {
+                hash = 31 * hash + terminal.getText().hashCode();
+            } else if (!(node instanceof FunctionBodyContext || node instanceof ConstructorBodyContext)) {
+                for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                    stack.push(node.getChild(i));
+                }
+            }
+        }
+        // separates the declarations
+        return 31 * hash;
+    }
+
+    private static Set<String> collectReferences(CompilationUnit unit) {
+        Set<String> names = new HashSet<>();
+        // the generated units are never edited, and nothing they mention can be declared by a script
+        if (unit.isGenerated()) {
+            return names;
+        }
+        if (unit.getParseTree() != null && unit.getScope(unit.getParseTree()) != null) {
+            for (Symbol symbol : unit.getTopLevelSymbols()) {
+                if (symbol instanceof ImportSymbol importSymbol) {
+                    names.add(importSymbol.getQualifiedName());
+                }
+            }
+        }
+        TokenTable tokens = unit.getTokenTable();
+        if (tokens == null) {
+            return names;
+        }
+        // every identifier, and every prefix of a qualified name such as a.b.c
+        StringBuilder qualifiedName = new StringBuilder();
+        int previousType = Integer.MIN_VALUE;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getChannel(i) != ZenScriptLexer.DEFAULT_TOKEN_CHANNEL) {
+                continue;
+            }
+            int type = tokens.getType(i);
+            if (type == ZenScriptLexer.IDENTIFIER) {
+                String name = tokens.getText(i);
+                names.add(name);
+                if (previousType == ZenScriptLexer.DOT && !qualifiedName.isEmpty()) {
+                    qualifiedName.append('.').append(name);
+                    names.add(qualifiedName.toString());
+                } else {
+                    qualifiedName.setLength(0);
+                    qualifiedName.append(name);
+                }
+            } else if (type != ZenScriptLexer.DOT) {
+                qualifiedName.setLength(0);
+            }
+            previousType = type;
+        }
+        return names;
+    }
+
+    /* End Private Methods */
+
+}
@@ -6,4 +6,8 @@ public interface Document extends AutoCloseable {
 
     Optional<CompilationUnit> getUnit();
 
+    // releases the lock of the env, which never fails
+    @Override
+    void close();
+
 }
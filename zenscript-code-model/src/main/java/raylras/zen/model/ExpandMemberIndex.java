@@ -0,0 +1,67 @@
+package raylras.zen.model;
+
+import raylras.zen.model.symbol.ExpandFunctionSymbol;
+import raylras.zen.model.symbol.Symbol;
+import raylras.zen.model.type.Type;
+import raylras.zen.util.GenerationCache;
+
+import java.util.*;
+
+/**
+ * Caches the expand functions applicable to each type.
+ * <p>
+ * The expand functions are grouped by their expanding type, so resolving a type only tests each distinct expanding type once.
+ * Everything is rebuilt after the generation of the {@link SymbolIndex} changes.
+ */
+class ExpandMemberIndex {
+
+    private static final int MAX_CACHED_TYPES = 4096;
+
+    private final SymbolIndex symbolIndex;
+    private final GenerationCache<Type, List<Symbol>> cache;
+    private volatile Grouping grouping;
+
+    ExpandMemberIndex(SymbolIndex symbolIndex) {
+        this.symbolIndex = symbolIndex;
+        this.cache = new GenerationCache<>(symbolIndex::getGeneration, MAX_CACHED_TYPES);
+    }
+
+    List<Symbol> getExpandFunctions(Type type) {
+        return cache.get(type, key -> getGrouping().resolve(key));
+    }
+
+    /* Private Methods */
+
+    private Grouping getGrouping() {
+        long generation = symbolIndex.getGeneration();
+        Grouping current = grouping;
+        if (current == null || current.generation() != generation) {
+            current = Grouping.create(generation, symbolIndex.getExpandFunctions());
+            grouping = current;
+        }
+        return current;
+    }
+
+    /* End Private Methods */
+
+    private record Grouping(long generation, Map<Type, List<Symbol>> byExpandingType) {
+        static Grouping create(long generation, List<ExpandFunctionSymbol> expandFunctions) {
+            Map<Type, List<Symbol>> byExpandingType = new LinkedHashMap<>();
+            for (ExpandFunctionSymbol expandFunction : expandFunctions) {
+                byExpandingType.computeIfAbsent(expandFunction.getExpandingType(), key -> new ArrayList<>()).add(expandFunction);
+            }
+            return new Grouping(generation, byExpandingType);
+        }
+
+        List<Symbol> resolve(Type type) {
+            List<Symbol> symbols = new ArrayList<>();
+            byExpandingType.forEach((expandingType, expandFunctions) -> {
+                if (type.isInheritedFrom(expandingType)) {
+                    symbols.addAll(expandFunctions);
+                }
+            });
+            return Collections.unmodifiableList(symbols);
+        }
+    }
+
+}
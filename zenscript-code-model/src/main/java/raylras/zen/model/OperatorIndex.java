@@ -0,0 +1,56 @@
+package raylras.zen.model;
+
+import raylras.zen.model.symbol.Operator;
+import raylras.zen.model.symbol.OperatorFunctionSymbol;
+import raylras.zen.model.symbol.Symbol;
+import raylras.zen.model.type.Type;
+import raylras.zen.util.GenerationCache;
+
+import java.util.*;
+
+/**
+ * Caches the operators applicable to each type, declared by the type itself or by an expansion.
+ * <p>
+ * Everything is rebuilt after the generation of the {@link SymbolIndex} changes.
+ */
+class OperatorIndex {
+
+    private static final int MAX_CACHED_TYPES = 4096;
+
+    private final CompilationEnvironment env;
+    private final GenerationCache<Type, Map<Operator, List<OperatorFunctionSymbol>>> cache;
+
+    OperatorIndex(CompilationEnvironment env) {
+        this.env = env;
+        this.cache = new GenerationCache<>(env.getSymbolIndex()::getGeneration, MAX_CACHED_TYPES);
+    }
+
+    List<OperatorFunctionSymbol> getOperators(Type type, Operator operator) {
+        return cache.get(type, this::collectOperators).getOrDefault(operator, List.of());
+    }
+
+    /* Private Methods */
+
+    private Map<Operator, List<OperatorFunctionSymbol>> collectOperators(Type type) {
+        if (!(type instanceof SymbolProvider symbolProvider)) {
+            return Collections.emptyMap();
+        }
+        Map<Operator, List<OperatorFunctionSymbol>> operators = new EnumMap<>(Operator.class);
+        // the members of the type come before the expansions
+        addOperators(operators, symbolProvider.getSymbols());
+        addOperators(operators, env.getExpandMembers(type));
+        operators.replaceAll((operator, symbols) -> List.copyOf(symbols));
+        return operators;
+    }
+
+    private static void addOperators(Map<Operator, List<OperatorFunctionSymbol>> operators, Collection<Symbol> symbols) {
+        for (Symbol symbol : symbols) {
+            if (symbol instanceof OperatorFunctionSymbol operator) {
+                operators.computeIfAbsent(operator.getOperator(), key -> new ArrayList<>(1)).add(operator);
+            }
+        }
+    }
+
+    /* End Private Methods */
+
+}
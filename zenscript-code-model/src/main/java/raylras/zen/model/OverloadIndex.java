@@ -0,0 +1,31 @@
+package raylras.zen.model;
+
+import raylras.zen.model.type.Type;
+import raylras.zen.util.GenerationCache;
+import raylras.zen.util.Overloads;
+import raylras.zen.util.Symbols;
+
+/**
+ * Caches the overloads of each executable member name of each type, along with their resolved calls.
+ * <p>
+ * Everything is rebuilt after the generation of the {@link SymbolIndex} changes.
+ */
+class OverloadIndex {
+
+    private static final int MAX_CACHED_MEMBERS = 4096;
+
+    private final CompilationEnvironment env;
+    private final GenerationCache<Member, Overloads> cache;
+
+    OverloadIndex(CompilationEnvironment env) {
+        this.env = env;
+        this.cache = new GenerationCache<>(env.getSymbolIndex()::getGeneration, MAX_CACHED_MEMBERS);
+    }
+
+    Overloads getOverloads(Type type, String name) {
+        return cache.get(new Member(type, name), member -> new Overloads(Symbols.getExecutableMembersByName(type, name, env)));
+    }
+
+    private record Member(Type type, String name) {}
+
+}
@@ -0,0 +1,202 @@
+package raylras.zen.model;
+
+import raylras.zen.model.symbol.ClassSymbol;
+import raylras.zen.model.symbol.ExpandFunctionSymbol;
+import raylras.zen.model.symbol.ImportSymbol;
+import raylras.zen.model.symbol.Symbol;
+import raylras.zen.util.PackageTree;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indexes the top-level symbols of the units of an env that are visible to every other unit:
+ * globals by name, classes by qualified name and by package, and expand functions.
+ * <p>
+ * The index is updated per unit whenever the declarations of the unit change, instead of scanning every unit on each lookup.
+ * An update replacing the symbols contributed by the unit, or the imports they are resolved through,
+ * increases the generation, which lets the derived caches know when to be rebuilt.
+ * Most edits leave the contributed symbols untouched, since the incremental reparse keeps the symbols of the unchanged elements.
+ */
+public class SymbolIndex {
+
+    private final Map<CompilationUnit, Contribution> contributions = new ConcurrentHashMap<>();
+    private final Map<String, List<Symbol>> globals = new ConcurrentHashMap<>();
+    private final Map<String, List<ClassSymbol>> classes = new ConcurrentHashMap<>();
+    private final Set<ExpandFunctionSymbol> expandFunctions = ConcurrentHashMap.newKeySet();
+    private final PackageTree<ClassSymbol> packageTree = new PackageTree<>(".");
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Replaces the symbols contributed by the unit with its current top-level symbols.
+     *
+     * @return true if the contributed symbols have been replaced
+     */
+    public synchronized boolean update(CompilationUnit unit) {
+        Contribution contribution = Contribution.of(unit);
+        Contribution oldContribution = contributions.put(unit, contribution);
+        if (contribution.isSameAs(oldContribution != null ? oldContribution : Contribution.EMPTY)) {
+            return false;
+        }
+        if (oldContribution != null) {
+            unregister(oldContribution);
+        }
+        register(contribution);
+        generation.incrementAndGet();
+        return true;
+    }
+
+    public synchronized void remove(CompilationUnit unit) {
+        Contribution contribution = contributions.remove(unit);
+        if (contribution != null) {
+            unregister(contribution);
+            generation.incrementAndGet();
+        }
+    }
+
+    public synchronized void clear() {
+        contributions.clear();
+        globals.clear();
+        classes.clear();
+        expandFunctions.clear();
+        packageTree.clear();
+        generation.incrementAndGet();
+    }
+
+    public List<Symbol> getGlobals(String name) {
+        return globals.getOrDefault(name, List.of());
+    }
+
+    public List<Symbol> getGlobals() {
+        return globals.values().stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * @return the class declared last with the qualified name, or null if there is none
+     */
+    public ClassSymbol getClass(String qualifiedName) {
+        List<ClassSymbol> symbols = classes.get(qualifiedName);
+        return (symbols != null) ? symbols.get(symbols.size() - 1) : null;
+    }
+
+    public Collection<ClassSymbol> getClasses() {
+        return classes.values().stream()
+                .map(symbols -> symbols.get(symbols.size() - 1))
+                .toList();
+    }
+
+    /**
+     * The classes by package, which must not be modified outside this index.
+     */
+    public PackageTree<ClassSymbol> getPackageTree() {
+        return packageTree;
+    }
+
+    public List<ExpandFunctionSymbol> getExpandFunctions() {
+        return List.copyOf(expandFunctions);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /* Private Methods */
+
+    private void register(Contribution contribution) {
+        for (Symbol global : contribution.globals()) {
+            globals.compute(global.getName(), (name, symbols) -> append(symbols, global));
+        }
+        for (ClassSymbol classSymbol : contribution.classes()) {
+            classes.compute(classSymbol.getQualifiedName(), (name, symbols) -> append(symbols, classSymbol));
+            packageTree.put(classSymbol.getQualifiedName(), classSymbol);
+        }
+        expandFunctions.addAll(contribution.expandFunctions());
+    }
+
+    private void unregister(Contribution contribution) {
+        for (Symbol global : contribution.globals()) {
+            globals.computeIfPresent(global.getName(), (name, symbols) -> without(symbols, global));
+        }
+        for (ClassSymbol classSymbol : contribution.classes()) {
+            List<ClassSymbol> remaining = classes.computeIfPresent(classSymbol.getQualifiedName(), (name, symbols) -> without(symbols, classSymbol));
+            if (remaining != null) {
+                packageTree.put(classSymbol.getQualifiedName(), remaining.get(remaining.size() - 1));
+            } else {
+                packageTree.remove(classSymbol.getQualifiedName(), classSymbol);
+            }
+        }
+        contribution.expandFunctions().forEach(expandFunctions::remove);
+    }
+
+    // the lists are copied on write, so the readers never see them being modified
+    private static <T> List<T> append(List<T> symbols, T symbol) {
+        List<T> result = (symbols != null) ? new ArrayList<>(symbols) : new ArrayList<>(1);
+        result.add(symbol);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <T> List<T> without(List<T> symbols, T symbol) {
+        List<T> result = new ArrayList<>(symbols);
+        result.removeIf(it -> it == symbol);
+        return result.isEmpty() ? null : Collections.unmodifiableList(result);
+    }
+
+    /* End Private Methods */
+
+    /**
+     * The imports of a unit contributing anything are kept as well,
+     * since the types of the contributed symbols, such as the expanding types, are resolved through them.
+     */
+    private record Contribution(List<Symbol> globals, List<ClassSymbol> classes, List<ExpandFunctionSymbol> expandFunctions, List<ImportSymbol> imports) {
+        static final Contribution EMPTY = new Contribution(List.of(), List.of(), List.of(), List.of());
+
+        static Contribution of(CompilationUnit unit) {
+            List<Symbol> globals = new ArrayList<>();
+            List<ClassSymbol> classes = new ArrayList<>();
+            List<ExpandFunctionSymbol> expandFunctions = new ArrayList<>();
+            List<ImportSymbol> imports = new ArrayList<>();
+            if (unit.getParseTree() != null && unit.getScope(unit.getParseTree()) != null) {
+                for (Symbol symbol : unit.getTopLevelSymbols()) {
+                    if (symbol.isModifiedBy(Symbol.Modifier.GLOBAL)) {
+                        globals.add(symbol);
+                    }
+                    if (symbol instanceof ClassSymbol classSymbol) {
+                        classes.add(classSymbol);
+                    }
+                    if (symbol instanceof ExpandFunctionSymbol expandFunction) {
+                        expandFunctions.add(expandFunction);
+                    }
+                    if (symbol instanceof ImportSymbol importSymbol) {
+                        imports.add(importSymbol);
+                    }
+                }
+            }
+            if (globals.isEmpty() && classes.isEmpty() && expandFunctions.isEmpty()) {
+                imports.clear();
+            }
+            return new Contribution(globals, classes, expandFunctions, imports);
+        }
+
+        // the symbols are compared by identity, the derived caches hold on to the symbols themselves
+        boolean isSameAs(Contribution other) {
+            return isSame(globals, other.globals) && isSame(classes, other.classes) && isSame(expandFunctions, other.expandFunctions)
+                    && isSame(imports, other.imports);
+        }
+
+        private static boolean isSame(List<? extends Symbol> symbols, List<? extends Symbol> others) {
+            if (symbols.size() != others.size()) {
+                return false;
+            }
+            for (int i = 0; i < symbols.size(); i++) {
+                if (symbols.get(i) != others.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
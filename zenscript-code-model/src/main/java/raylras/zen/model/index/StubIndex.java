@@ -0,0 +1,402 @@
+package raylras.zen.model.index;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.model.parser.ZenScriptLexer;
+import raylras.zen.model.parser.ZenScriptParser;
+import raylras.zen.util.MappedCharStream;
+import raylras.zen.util.PathUtils;
+import raylras.zen.util.RebasableToken;
+import raylras.zen.util.TokenTable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * A persistent index of the stub tokens of the generated declaration files, stored next to the generated directory.
+ * <p>
+ * Each entry holds the source of a file and its tokens as left by the stub lexing,
+ * keyed by the relative path and validated by the size, the modification time and the content hash of the file.
+ * The index is memory-mapped read-only, so the token text is sliced from the mapping without copying,
+ * and several servers working on the same generated directory share the same pages.
+ * <p>
+ * Once any entry becomes stale, the index is written again under the next generation number, such as {@code generated.2.idx},
+ * since a mapped file cannot be replaced on every platform. The older generations are deleted once nothing maps them anymore.
+ */
+public final class StubIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubIndex.class);
+
+    private static final String INDEX_FILE_PREFIX = "generated";
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x5A535849;
+    private static final int VERSION = 1;
+    // any change to the grammar may change the tokens
+    private static final int GRAMMAR_HASH = 31 * ZenScriptLexer._serializedATN.hashCode() + ZenScriptParser._serializedATN.hashCode();
+    private static final int HEADER_LENGTH = 16;
+    private static final int TOKEN_LENGTH = 6 * Integer.BYTES;
+
+    private final Path directory;
+    private final long generation;
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private StubIndex(Path directory, long generation, ByteBuffer buffer, Map<String, Entry> entries) {
+        this.directory = directory;
+        this.generation = generation;
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * @return the latest index of the env, or null if there is none
+     */
+    public static Path getIndexPath(CompilationEnvironment env) {
+        Map.Entry<Long, Path> latest = listIndexes(env.getGeneratedRoot().getParent()).lastEntry();
+        return (latest != null) ? latest.getValue() : null;
+    }
+
+    /**
+     * Maps the latest index of the env, an index that is missing or unreadable is treated as empty.
+     */
+    public static StubIndex open(CompilationEnvironment env) {
+        Path directory = env.getGeneratedRoot().getParent();
+        Map.Entry<Long, Path> latest = listIndexes(directory).lastEntry();
+        if (latest == null) {
+            return new StubIndex(directory, 0, null, Map.of());
+        }
+        Path indexPath = latest.getValue();
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            StubIndex index = new StubIndex(directory, latest.getKey(), buffer, readEntries(buffer));
+            // the ones left over while they were mapped
+            deleteOlderIndexes(directory, latest.getKey());
+            return index;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read the stub index {}, it will be rebuilt", indexPath, e);
+            return new StubIndex(directory, latest.getKey(), null, Map.of());
+        }
+    }
+
+    /**
+     * Returns the indexed stub tokens of the unit, or null if the unit is not indexed or has changed since.
+     */
+    public TokenSource getTokenSource(CompilationUnit unit) {
+        if (!unit.isGenerated() || !PathUtils.isDzsFile(unit.getPath())) {
+            return null;
+        }
+        Entry entry = entries.get(getKey(unit));
+        if (entry == null) {
+            stale.set(true);
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(unit.getPath(), BasicFileAttributes.class);
+            if (attributes.size() != entry.size()) {
+                stale.set(true);
+                return null;
+            }
+            if (attributes.lastModifiedTime().toMillis() != entry.lastModified()) {
+                // the file may have been dumped again with the same content
+                stale.set(true);
+                if (hash(unit.getPath()) != entry.hash()) {
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        List<Token> tokens = createTokens(entry, unit);
+        used.add(entry.key());
+        hits.incrementAndGet();
+        return new ListTokenSource(tokens);
+    }
+
+    /**
+     * Drops the entry of a unit that could not be loaded from its stub tokens, so that the index is rewritten.
+     */
+    public void drop(CompilationUnit unit) {
+        if (used.remove(getKey(unit))) {
+            hits.decrementAndGet();
+        }
+        stale.set(true);
+    }
+
+    /**
+     * Rewrites the index from the generated units of the env, unless every entry is still up-to-date.
+     */
+    public void updateIfNeeded(CompilationEnvironment env) {
+        List<CompilationUnit> units = env.getUnits().stream()
+                .filter(CompilationUnit::isGenerated)
+                .filter(unit -> PathUtils.isDzsFile(unit.getPath()))
+                .filter(unit -> unit.getTokenTable() != null)
+                .sorted(Comparator.comparing(CompilationUnit::getPath))
+                .toList();
+        if (!units.isEmpty()) {
+            logger.info("Loaded {} of {} generated units from the stub index", hits.get(), units.size());
+        }
+        if (!stale.get() && used.size() == entries.size() && units.size() == entries.size()) {
+            return;
+        }
+        if (!Files.isDirectory(env.getGeneratedRoot())) {
+            return;
+        }
+        Path indexPath = directory.resolve(getFileName(generation + 1));
+        try {
+            if (write(units, indexPath)) {
+                logger.info("Wrote the stub index {} with {} entries", indexPath, units.size());
+            }
+            deleteOlderIndexes(directory, generation + 1);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write the stub index {}", indexPath, e);
+        }
+    }
+
+    /* Private Methods */
+
+    /**
+     * @return the indexes in the directory by their generations, the one named {@code generated.idx} is the generation 0
+     */
+    private static NavigableMap<Long, Path> listIndexes(Path directory) {
+        NavigableMap<Long, Path> indexes = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return indexes;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, INDEX_FILE_PREFIX + "*" + INDEX_FILE_SUFFIX)) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                String generation = fileName.substring(INDEX_FILE_PREFIX.length(), fileName.length() - INDEX_FILE_SUFFIX.length());
+                if (generation.isEmpty()) {
+                    indexes.put(0L, path);
+                } else if (generation.matches("\\.\\d{1,18}")) {
+                    indexes.put(Long.parseLong(generation.substring(1)), path);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list the stub indexes in {}", directory, e);
+        }
+        return indexes;
+    }
+
+    private static String getFileName(long generation) {
+        return INDEX_FILE_PREFIX + "." + generation + INDEX_FILE_SUFFIX;
+    }
+
+    /**
+     * Deletes the generations older than the given one, the ones still mapped by a server may not be deleted until the next time.
+     */
+    private static void deleteOlderIndexes(Path directory, long generation) {
+        for (Path path : listIndexes(directory).headMap(generation).values()) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.debug("Failed to delete the old stub index {}", path, e);
+            }
+        }
+    }
+
+    private static Map<String, Entry> readEntries(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != GRAMMAR_HASH) {
+            throw new IOException("Incompatible stub index");
+        }
+        int count = buffer.getInt(12);
+        Map<String, Entry> entries = new HashMap<>(count * 2);
+        ByteBuffer directory = buffer.duplicate().position(HEADER_LENGTH);
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[directory.getShort() & 0xFFFF];
+            directory.get(key);
+            Entry entry = new Entry(new String(key, StandardCharsets.UTF_8),
+                    directory.getLong(), directory.getLong(), directory.getLong(),
+                    directory.get() != 0, directory.getInt(), directory.getInt(), directory.getInt(), directory.getInt());
+            entries.put(entry.key(), entry);
+        }
+        return entries;
+    }
+
+    private List<Token> createTokens(Entry entry, CompilationUnit unit) {
+        int textLength = entry.latin1() ? entry.textLength() : entry.textLength() * 2;
+        CharStream charStream = MappedCharStream.wrap(buffer.slice(entry.textOffset(), textLength), entry.latin1(), unit.getPath().toString());
+        Pair<TokenSource, CharStream> source = new Pair<>(null, charStream);
+        List<Token> tokens = new ArrayList<>(entry.tokenCount());
+        int offset = entry.tokensOffset();
+        for (int i = 0; i < entry.tokenCount(); i++, offset += TOKEN_LENGTH) {
+            tokens.add(RebasableToken.FACTORY.create(source,
+                    buffer.getInt(offset), null, buffer.getInt(offset + 4),
+                    buffer.getInt(offset + 8), buffer.getInt(offset + 12),
+                    buffer.getInt(offset + 16), buffer.getInt(offset + 20)));
+        }
+        return tokens;
+    }
+
+    /**
+     * @return false if another server has written the same generation meanwhile
+     */
+    private boolean write(List<CompilationUnit> units, Path indexPath) throws IOException {
+        List<CompilationUnit> indexedUnits = new ArrayList<>(units.size());
+        List<String> texts = new ArrayList<>(units.size());
+        long directoryLength = 0;
+        for (CompilationUnit unit : units) {
+            String text = getText(unit.getTokenTable());
+            // the token offsets of a source with supplementary chars do not match its UTF-16 text
+            if (text.length() != unit.getTokenTable().getSource().size()) {
+                continue;
+            }
+            indexedUnits.add(unit);
+            texts.add(text);
+            directoryLength += Short.BYTES + getKey(unit).getBytes(StandardCharsets.UTF_8).length + 3 * Long.BYTES + 1 + 4 * Integer.BYTES;
+        }
+
+        List<Entry> entries = new ArrayList<>(indexedUnits.size());
+        List<TokenTable> tables = new ArrayList<>(indexedUnits.size());
+        long offset = HEADER_LENGTH + directoryLength;
+        for (int i = 0; i < indexedUnits.size(); i++) {
+            CompilationUnit unit = indexedUnits.get(i);
+            TokenTable table = unit.getTokenTable();
+            String text = texts.get(i);
+            boolean latin1 = isLatin1(text);
+            long textOffset = offset;
+            offset += latin1 ? text.length() : text.length() * 2L;
+            long tokensOffset = offset;
+            int tokenCount = countIndexedTokens(table);
+            offset += (long) tokenCount * TOKEN_LENGTH;
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Stub index is too large");
+            }
+            BasicFileAttributes attributes = Files.readAttributes(unit.getPath(), BasicFileAttributes.class);
+            entries.add(new Entry(getKey(unit), attributes.size(), attributes.lastModifiedTime().toMillis(), hash(unit.getPath()),
+                    latin1, (int) textOffset, text.length(), (int) tokensOffset, tokenCount));
+            tables.add(table);
+        }
+
+        Path tempPath = Files.createTempFile(directory, indexPath.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(GRAMMAR_HASH);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    byte[] key = entry.key().getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(key.length);
+                    out.write(key);
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModified());
+                    out.writeLong(entry.hash());
+                    out.writeByte(entry.latin1() ? 1 : 0);
+                    out.writeInt(entry.textOffset());
+                    out.writeInt(entry.textLength());
+                    out.writeInt(entry.tokensOffset());
+                    out.writeInt(entry.tokenCount());
+                }
+                for (int i = 0; i < entries.size(); i++) {
+                    writeText(out, texts.get(i), entries.get(i).latin1());
+                    writeTokens(out, tables.get(i));
+                }
+            }
+            // the new generation is never mapped yet, so it is moved into place without replacing anything
+            try {
+                Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, indexPath);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static void writeText(DataOutputStream out, String text, boolean latin1) throws IOException {
+        if (latin1) {
+            out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        } else {
+            out.writeChars(text);
+        }
+    }
+
+    private static void writeTokens(DataOutputStream out, TokenTable table) throws IOException {
+        for (int i = 0; i < table.size(); i++) {
+            if (isIndexed(table.getChannel(i))) {
+                out.writeInt(table.getType(i));
+                out.writeInt(table.getChannel(i));
+                out.writeInt(table.getStartIndex(i));
+                out.writeInt(table.getStopIndex(i));
+                out.writeInt(table.getLine(i));
+                out.writeInt(table.getCharPositionInLine(i));
+            }
+        }
+    }
+
+    private static int countIndexedTokens(TokenTable table) {
+        int count = 0;
+        for (int i = 0; i < table.size(); i++) {
+            if (isIndexed(table.getChannel(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whitespaces and comments are not needed by the declarations.
+     */
+    private static boolean isIndexed(int channel) {
+        return channel == Token.DEFAULT_CHANNEL || channel == ZenScriptLexer.PREPROCESSOR_CHANNEL;
+    }
+
+    private static String getText(TokenTable table) {
+        return table.getSource().getText(Interval.of(0, table.getSource().size() - 1));
+    }
+
+    private static boolean isLatin1(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getKey(CompilationUnit unit) {
+        return unit.getEnv().getGeneratedRoot().relativize(unit.getPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private static long hash(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(bytes) >= 0) {
+                bytes.flip();
+                crc.update(bytes);
+                bytes.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /* End Private Methods */
+
+    private record Entry(String key, long size, long lastModified, long hash,
+                         boolean latin1, int textOffset, int textLength, int tokensOffset, int tokenCount) {
+    }
+
+}
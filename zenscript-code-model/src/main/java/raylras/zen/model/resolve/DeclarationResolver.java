@@ -1,6 +1,7 @@
 package raylras.zen.model.resolve;
 
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import raylras.zen.model.CompilationUnit;
 import raylras.zen.model.Listener;
 import raylras.zen.model.parser.ZenScriptParser.*;
@@ -21,6 +22,17 @@ public final class DeclarationResolver {
         unit.accept(new DeclarationListener(unit));
     }
 
+    /**
+     * Resolves the declarations of a subtree that has been spliced into an already resolved unit.
+     */
+    public static void resolveDeclarations(CompilationUnit unit, ParseTree cst) {
+        Objects.requireNonNull(unit);
+        Objects.requireNonNull(cst);
+        DeclarationListener listener = new DeclarationListener(unit);
+        listener.scopeStack.push(unit.lookupScope(cst.getParent()));
+        ParseTreeWalker.DEFAULT.walk(listener, cst);
+    }
+
     private static final class DeclarationListener extends Listener {
         private final CompilationUnit unit;
         private final Stack<Scope> scopeStack = new ArrayStack<>();
@@ -9,13 +9,15 @@ import raylras.zen.model.parser.ZenScriptParser.SimpleNameExprContext;
 import raylras.zen.model.parser.ZenScriptParser.StatementContext;
 import raylras.zen.model.scope.Scope;
 import raylras.zen.model.symbol.ClassSymbol;
+import raylras.zen.model.symbol.PackageSymbol;
 import raylras.zen.model.symbol.Symbol;
+import raylras.zen.model.symbol.SymbolFactory;
 import raylras.zen.util.PackageTree;
 import raylras.zen.util.Ranges;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Objects;
+import java.util.List;
 import java.util.function.Predicate;
 
 public class SymbolResolver {
@@ -70,7 +72,9 @@ public class SymbolResolver {
 
             Symbol leftSymbol = leftPossibles.getFirst();
             SymbolProvider foundResults;
-            if (leftSymbol instanceof ClassSymbol classSymbol) {
+            if (leftSymbol instanceof PackageSymbol packageSymbol) {
+                foundResults = packageSymbol.filter(isSymbolNameEquals(ctx.simpleName()));
+            } else if (leftSymbol instanceof ClassSymbol classSymbol) {
                 foundResults = classSymbol
                         .filter(Symbol::isStatic)
                         .filter(isSymbolNameEquals(ctx.simpleName()));
@@ -97,7 +101,7 @@ public class SymbolResolver {
         private SymbolProvider lookupSymbol(ParseTree cst, String name) {
             Scope scope = unit.lookupScope(cst);
             if (scope != null) {
-                return scope.filter(isSymbolNameEquals(name))
+                return SymbolProvider.of(scope.getSymbols(name))
                         .orElse(() -> lookupGlobalSymbols(name));
             } else {
                 return () -> lookupGlobalSymbols(name);
@@ -105,11 +109,15 @@ public class SymbolResolver {
         }
 
         private Collection<Symbol> lookupGlobalSymbols(String name) {
-            Collection<Symbol> globals = unit.getEnv().getGlobalSymbols().stream().filter(it -> Objects.equals(it.getName(), name)).toList();
+            Collection<Symbol> globals = unit.getEnv().getGlobalSymbols(name);
             if (globals.isEmpty()) {
-                // TODO: find package
-                PackageTree<ClassSymbol> packageTree = PackageTree.of(".", unit.getEnv().getClassSymbolMap());
-                return Collections.emptyList();
+                PackageTree<ClassSymbol> packageTree = unit.getEnv().getPackageTree().get(name);
+                if (packageTree.hasElement()) {
+                    return List.of(packageTree.getElement());
+                }
+                if (!packageTree.isEmpty()) {
+                    return List.of(SymbolFactory.createPackageSymbol(name, packageTree));
+                }
             }
             return globals;
         }
@@ -118,10 +126,6 @@ public class SymbolResolver {
             return symbol -> name.getText().equals(symbol.getName());
         }
 
-        private static Predicate<Symbol> isSymbolNameEquals(String name) {
-            return symbol -> name.equals(symbol.getName());
-        }
-
     }
 
 }
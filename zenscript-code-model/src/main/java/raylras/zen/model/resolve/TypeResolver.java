@@ -16,10 +16,10 @@ import raylras.zen.model.type.*;
 import raylras.zen.util.CSTNodes;
 import raylras.zen.util.Executables;
 import raylras.zen.util.Operators;
-import raylras.zen.util.Symbols;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -31,8 +31,17 @@ public final class TypeResolver {
     public static Type getType(ParseTree cst, CompilationUnit unit) {
         Objects.requireNonNull(cst);
         Objects.requireNonNull(unit);
-        Type type = cst.accept(new TypeVisitor(unit));
-        return type == null ? AnyType.INSTANCE : type;
+        Map<ParseTree, Type> typeCache = unit.getTypeCache();
+        Type type = typeCache.get(cst);
+        if (type == null) {
+            // not computeIfAbsent, resolving a type may resolve the types of other nodes
+            type = cst.accept(new TypeVisitor(unit));
+            if (type == null) {
+                type = AnyType.INSTANCE;
+            }
+            typeCache.put(cst, type);
+        }
+        return type;
     }
 
     private static final class TypeVisitor extends Visitor<Type> {
@@ -61,10 +70,9 @@ public final class TypeResolver {
                 symbol = scope.lookupSymbol(simpleName);
             }
             if (symbol == null) {
-                for (Symbol globalSymbol : unit.getEnv().getGlobalSymbols()) {
-                    if (simpleName.equals(globalSymbol.getName())) {
-                        symbol = globalSymbol;
-                    }
+                List<Symbol> globals = unit.getEnv().getGlobalSymbols(simpleName);
+                if (!globals.isEmpty()) {
+                    symbol = globals.get(globals.size() - 1);
                 }
             }
             return symbol;
@@ -87,7 +95,7 @@ public final class TypeResolver {
             if (returnType == null) {
                 returnType = AnyType.INSTANCE;
             }
-            return new FunctionType(returnType, paramTypes);
+            return FunctionType.of(returnType, paramTypes);
         }
 
         @Override
@@ -97,7 +105,7 @@ public final class TypeResolver {
             if (returnType == null) {
                 returnType = AnyType.INSTANCE;
             }
-            return new FunctionType(returnType, paramTypes);
+            return FunctionType.of(returnType, paramTypes);
         }
 
         @Override
@@ -151,7 +159,7 @@ public final class TypeResolver {
             } else {
                 returnType = AnyType.INSTANCE;
             }
-            return new FunctionType(returnType, paramTypes);
+            return FunctionType.of(returnType, paramTypes);
         }
 
         @Override
@@ -175,7 +183,7 @@ public final class TypeResolver {
         public Type visitOperatorFunctionDeclaration(OperatorFunctionDeclarationContext ctx) {
             List<Type> paramTypes = toTypeList(ctx.formalParameterList());
             Type returnType = visit(ctx.intersectionType());
-            return new FunctionType(returnType, paramTypes);
+            return FunctionType.of(returnType, paramTypes);
         }
 
         @Override
@@ -222,12 +230,12 @@ public final class TypeResolver {
         @Override
         public Type visitMapLiteralExpr(MapLiteralExprContext ctx) {
             if (ctx.mapEntryList() == null) {
-                return new MapType(AnyType.INSTANCE, AnyType.INSTANCE);
+                return MapType.of(AnyType.INSTANCE, AnyType.INSTANCE);
             }
             MapEntryContext firstEntry = ctx.mapEntryList().mapEntry(0);
             Type keyType = visit(firstEntry.key);
             Type valueType = visit(firstEntry.value);
-            return new MapType(keyType, valueType);
+            return MapType.of(keyType, valueType);
         }
 
         @Override
@@ -311,8 +319,7 @@ public final class TypeResolver {
                         }
                         Type type = visit(memberAccessExpr.expression());
                         String name = memberAccessExpr.simpleName().getText();
-                        List<Executable> functions = Symbols.getExecutableMembersByName(type, name, unit.getEnv());
-                        return Executables.predictNextArgumentType(functions, argumentTypes, unit.getEnv());
+                        return Executables.predictNextArgumentType(type, name, argumentTypes, unit.getEnv());
                     }
                 }
             }
@@ -320,7 +327,7 @@ public final class TypeResolver {
             for (int i = 0; i < ctx.formalParameterList().formalParameter().size(); i++) {
                 paramTypes.add(AnyType.INSTANCE);
             }
-            return new FunctionType(AnyType.INSTANCE, paramTypes);
+            return FunctionType.of(AnyType.INSTANCE, paramTypes);
         }
 
         @Override
@@ -380,7 +387,7 @@ public final class TypeResolver {
         @Override
         public Type visitArrayLiteralExpr(ArrayLiteralExprContext ctx) {
             Type firstElementType = visit(ctx.expressionList().expression(0));
-            return new ArrayType(Objects.requireNonNullElse(firstElementType, AnyType.INSTANCE));
+            return ArrayType.of(Objects.requireNonNullElse(firstElementType, AnyType.INSTANCE));
         }
 
         @Override
@@ -398,8 +405,7 @@ public final class TypeResolver {
                     }
                     argumentTypes.add(argumentType);
                 }
-                List<Executable> functions = Symbols.getExecutableMembersByName(owner, memberAccessExpr.simpleName().getText(), unit.getEnv());
-                Executable matchedFunction = Executables.findBestMatch(functions, argumentTypes, unit.getEnv());
+                Executable matchedFunction = Executables.findBestMatch(owner, memberAccessExpr.simpleName().getText(), argumentTypes, unit.getEnv());
                 return matchedFunction == null ? null : matchedFunction.getReturnType();
             } else {
                 Type leftType = visit(ctx.expression());
@@ -422,27 +428,27 @@ public final class TypeResolver {
         @Override
         public Type visitArrayType(ArrayTypeContext ctx) {
             Type elementType = visit(ctx.typeLiteral());
-            return new ArrayType(elementType);
+            return ArrayType.of(elementType);
         }
 
         @Override
         public Type visitMapType(MapTypeContext ctx) {
             Type keyType = visit(ctx.key);
             Type valueType = visit(ctx.value);
-            return new MapType(keyType, valueType);
+            return MapType.of(keyType, valueType);
         }
 
         @Override
         public Type visitFunctionType(FunctionTypeContext ctx) {
             List<Type> paramTypes = toTypeList(ctx.typeLiteralList());
             Type returnType = visitReturnType(ctx.returnType());
-            return new FunctionType(returnType, paramTypes);
+            return FunctionType.of(returnType, paramTypes);
         }
 
         @Override
         public Type visitListType(ListTypeContext ctx) {
             Type elementType = visit(ctx.typeLiteral());
-            return new ListType(elementType);
+            return ListType.of(elementType);
         }
 
         @Override
@@ -4,14 +4,15 @@ import org.antlr.v4.runtime.tree.ParseTree;
 import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Symbol;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Predicate;
 
 public class Scope implements SymbolProvider {
 
     private final Scope parent;
+    // in the order of declaration, the same for each bucket of overloads
     private final List<Symbol> symbols = new ArrayList<>();
+    private final Map<String, List<Symbol>> symbolsByName = new HashMap<>();
     private final ParseTree cst;
 
     public Scope(Scope parent, ParseTree cst) {
@@ -21,40 +22,52 @@ public class Scope implements SymbolProvider {
 
     public void addSymbol(Symbol symbol) {
         symbols.add(symbol);
+        symbolsByName.computeIfAbsent(symbol.getName(), name -> new ArrayList<>(1)).add(symbol);
     }
 
     public void removeSymbol(Symbol symbol) {
-        symbols.remove(symbol);
+        if (symbols.remove(symbol)) {
+            List<Symbol> bucket = symbolsByName.get(symbol.getName());
+            bucket.remove(symbol);
+            if (bucket.isEmpty()) {
+                symbolsByName.remove(symbol.getName());
+            }
+        }
+    }
+
+    public void removeSymbols(Predicate<Symbol> filter) {
+        if (symbols.removeIf(filter)) {
+            reindex();
+        }
+    }
+
+    public void sortSymbols(Comparator<Symbol> comparator) {
+        symbols.sort(comparator);
+        reindex();
     }
 
     public Symbol lookupSymbol(String simpleName) {
         return lookupSymbol(Symbol.class, simpleName);
     }
+
     public List<Symbol> lookupSymbols(String simpleName) {
         Scope scope = this;
-        List<Symbol> result = new ArrayList<>();
         while (scope != null) {
-
-            for (Symbol symbol : scope.getSymbols()) {
-                if (Objects.equals(symbol.getName(), simpleName)) {
-                    result.add(symbol);
-                }
-            }
+            List<Symbol> result = scope.getSymbols(simpleName);
             // assume overload only happen on same scope
-            if(!result.isEmpty()) {
+            if (!result.isEmpty()) {
                 return result;
             }
             scope = scope.parent;
         }
-        return result;
+        return Collections.emptyList();
     }
 
     public <T extends Symbol> T lookupSymbol(Class<T> clazz, String simpleName) {
         Scope scope = this;
         while (scope != null) {
-            for (Symbol symbol : scope.getSymbols()) {
-                if (clazz.isInstance(symbol)
-                        && Objects.equals(symbol.getName(), simpleName)) {
+            for (Symbol symbol : scope.getSymbols(simpleName)) {
+                if (clazz.isInstance(symbol)) {
                     return clazz.cast(symbol);
                 }
             }
@@ -69,11 +82,26 @@ public class Scope implements SymbolProvider {
 
     @Override
     public List<Symbol> getSymbols() {
-        return symbols;
+        return Collections.unmodifiableList(symbols);
+    }
+
+    /**
+     * @return the symbols of this scope with the name, in the order of declaration
+     */
+    public List<Symbol> getSymbols(String simpleName) {
+        List<Symbol> bucket = symbolsByName.get(simpleName);
+        return (bucket != null) ? Collections.unmodifiableList(bucket) : Collections.emptyList();
     }
 
     public ParseTree getCst() {
         return cst;
     }
 
+    private void reindex() {
+        symbolsByName.clear();
+        for (Symbol symbol : symbols) {
+            symbolsByName.computeIfAbsent(symbol.getName(), name -> new ArrayList<>(1)).add(symbol);
+        }
+    }
+
 }
@@ -11,8 +11,10 @@ import raylras.zen.model.type.AnyType;
 import raylras.zen.model.type.ClassType;
 import raylras.zen.model.type.FunctionType;
 import raylras.zen.model.type.Type;
+import raylras.zen.model.type.VoidType;
 import raylras.zen.util.CSTNodes;
 import raylras.zen.util.Operators;
+import raylras.zen.util.PackageTree;
 import raylras.zen.util.Range;
 
 import java.util.*;
@@ -28,8 +30,6 @@ public class SymbolFactory {
     public static ImportSymbol createImportSymbol(ParseTree nameCst, ImportDeclarationContext cst, CompilationUnit unit) {
         class ImportSymbolImpl implements ImportSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public String getQualifiedName() {
@@ -55,7 +55,7 @@ public class SymbolFactory {
             @Override
             public Type getType() {
                 // TODO: import static members
-                return unit.getEnv().getClassTypeMap().get(getQualifiedName());
+                return unit.getEnv().getClassType(getQualifiedName());
             }
 
             @Override
@@ -75,12 +75,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
         return new ImportSymbolImpl();
@@ -89,8 +89,6 @@ public class SymbolFactory {
     public static ClassSymbol createClassSymbol(ParseTree nameCst, ClassDeclarationContext cst, CompilationUnit unit) {
         class ClassSymbolImpl implements ClassSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
             private final ClassType classType = new ClassType(this);
 
             @Override
@@ -115,14 +113,13 @@ public class SymbolFactory {
                 if (cst.qualifiedNameList() == null) {
                     return Collections.emptyList();
                 }
-                Map<String, ClassType> classTypeMap = unit.getEnv().getClassTypeMap();
                 Scope scope = unit.lookupScope(cst);
                 return cst.qualifiedNameList().qualifiedName().stream()
                         .map(CSTNodes::getText)
                         .map(interfaceName -> scope.lookupSymbol(ImportSymbol.class, interfaceName))
                         .filter(Objects::nonNull)
                         .map(ImportSymbol::getQualifiedName)
-                        .map(classTypeMap::get)
+                        .map(unit.getEnv()::getClassType)
                         .filter(Objects::nonNull)
                         .collect(Collectors.toList());
             }
@@ -164,12 +161,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
         return new ClassSymbolImpl();
@@ -179,8 +176,6 @@ public class SymbolFactory {
         class VariableSymbolImpl implements VariableSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
             private final Modifier modifier = ModifierResolver.getModifier(cst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public String getName() {
@@ -214,12 +209,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
         return new VariableSymbolImpl();
@@ -254,13 +249,11 @@ public class SymbolFactory {
         class FunctionSymbolImpl implements FunctionSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
             private final Modifier modifier = ModifierResolver.getModifier(cst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public FunctionType getType() {
                 Type type = TypeResolver.getType(cst, unit);
-                return (type instanceof FunctionType) ? (FunctionType) type : new FunctionType(AnyType.INSTANCE);
+                return (type instanceof FunctionType) ? (FunctionType) type : FunctionType.of(AnyType.INSTANCE);
             }
 
             @Override
@@ -300,12 +293,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
 
@@ -314,7 +307,7 @@ public class SymbolFactory {
 
     public static FunctionSymbol createFunctionSymbol(String name, Type returnType, List<ParameterSymbol> params) {
         class FunctionSymbolImpl implements FunctionSymbol {
-            private final FunctionType functionType = new FunctionType(returnType, params.stream().map(Symbol::getType).collect(Collectors.toList()));
+            private final FunctionType functionType = FunctionType.of(returnType, params.stream().map(Symbol::getType).collect(Collectors.toList()));
 
             @Override
             public FunctionType getType() {
@@ -352,8 +345,6 @@ public class SymbolFactory {
     public static OperatorFunctionSymbol createOperatorFunctionSymbol(OperatorContext opCst, OperatorFunctionDeclarationContext cst, CompilationUnit unit) {
         class OperatorFunctionSymbolImpl implements OperatorFunctionSymbol, ParseTreeLocatable {
             private final Operator operator = Operators.of(opCst.getText(), cst.formalParameterList().formalParameter().size());
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(opCst);
 
             @Override
             public Operator getOperator() {
@@ -363,7 +354,7 @@ public class SymbolFactory {
             @Override
             public FunctionType getType() {
                 Type type = TypeResolver.getType(cst, unit);
-                return (type instanceof FunctionType) ? (FunctionType) type : new FunctionType(AnyType.INSTANCE);
+                return (type instanceof FunctionType) ? (FunctionType) type : FunctionType.of(AnyType.INSTANCE);
             }
 
             @Override
@@ -403,12 +394,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(opCst);
             }
         }
         return new OperatorFunctionSymbolImpl();
@@ -416,7 +407,7 @@ public class SymbolFactory {
 
     public static OperatorFunctionSymbol createOperatorFunctionSymbol(Operator operator, Type returnType, List<ParameterSymbol> params) {
         class OperatorFunctionSymbolImpl implements OperatorFunctionSymbol {
-            private final FunctionType functionType = new FunctionType(returnType, params.stream().map(Symbol::getType).collect(Collectors.toList()));
+            private final FunctionType functionType = FunctionType.of(returnType, params.stream().map(Symbol::getType).collect(Collectors.toList()));
 
             @Override
             public Operator getOperator() {
@@ -459,8 +450,6 @@ public class SymbolFactory {
     public static ParameterSymbol createParameterSymbol(ParseTree nameCst, FormalParameterContext cst, CompilationUnit unit) {
         class ParameterSymbolImpl implements ParameterSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public boolean isOptional() {
@@ -504,12 +493,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
         return new ParameterSymbolImpl();
@@ -518,8 +507,6 @@ public class SymbolFactory {
     public static ExpandFunctionSymbol createExpandFunctionSymbol(ParseTree nameCst, ExpandFunctionDeclarationContext cst, CompilationUnit unit) {
         class ExpandFunctionSymbolImpl implements ExpandFunctionSymbol, ParseTreeLocatable {
             private final String name = CSTNodes.getText(nameCst);
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public List<ParameterSymbol> getParameterList() {
@@ -554,7 +541,7 @@ public class SymbolFactory {
             @Override
             public FunctionType getType() {
                 Type type = TypeResolver.getType(cst, unit);
-                return (type instanceof FunctionType) ? (FunctionType) type : new FunctionType(AnyType.INSTANCE);
+                return (type instanceof FunctionType) ? (FunctionType) type : FunctionType.of(AnyType.INSTANCE);
             }
 
             @Override
@@ -569,12 +556,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
         }
         return new ExpandFunctionSymbolImpl();
@@ -642,8 +629,6 @@ public class SymbolFactory {
 
     public static ConstructorSymbol createConstructorSymbol(ParseTree nameCst, ParseTree cst, CompilationUnit unit, ClassSymbol declaringClass) {
         class ConstructorSymbolImpl implements ConstructorSymbol, ParseTreeLocatable {
-            private final Range range = Range.of(cst);
-            private final Range selectionRange = Range.of(nameCst);
 
             @Override
             public List<ParameterSymbol> getParameterList() {
@@ -667,12 +652,12 @@ public class SymbolFactory {
 
             @Override
             public Range getRange() {
-                return range;
+                return Range.of(cst);
             }
 
             @Override
             public Range getSelectionRange() {
-                return selectionRange;
+                return Range.of(nameCst);
             }
 
             @Override
@@ -688,7 +673,7 @@ public class SymbolFactory {
             @Override
             public FunctionType getType() {
                 Type type = TypeResolver.getType(cst, unit);
-                return (type instanceof FunctionType) ? (FunctionType) type : new FunctionType(AnyType.INSTANCE);
+                return (type instanceof FunctionType) ? (FunctionType) type : FunctionType.of(AnyType.INSTANCE);
             }
 
             @Override
@@ -704,6 +689,51 @@ public class SymbolFactory {
         return new ConstructorSymbolImpl();
     }
 
+    public static PackageSymbol createPackageSymbol(String qualifiedName, PackageTree<ClassSymbol> tree) {
+        class PackageSymbolImpl implements PackageSymbol {
+            private final String name = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+
+            @Override
+            public String getQualifiedName() {
+                return qualifiedName;
+            }
+
+            @Override
+            public List<Symbol> getSymbols() {
+                List<Symbol> symbols = new ArrayList<>();
+                tree.getSubTrees().forEach((name, subTree) -> {
+                    if (subTree.hasElement()) {
+                        symbols.add(subTree.getElement());
+                    } else {
+                        symbols.add(createPackageSymbol(qualifiedName + '.' + name, subTree));
+                    }
+                });
+                return symbols;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Kind getKind() {
+                return Kind.PACKAGE;
+            }
+
+            @Override
+            public Type getType() {
+                return VoidType.INSTANCE;
+            }
+
+            @Override
+            public Modifier getModifier() {
+                return Modifier.NONE;
+            }
+        }
+        return new PackageSymbolImpl();
+    }
+
     public static SymbolsBuilder builtinSymbols() {
         return new SymbolsBuilder();
     }
@@ -1,7 +1,6 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -10,12 +9,18 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.UnaryOperator;
 
-public class ArrayType extends Type implements SymbolProvider {
+public class ArrayType extends BuiltinType {
 
     private final Type elementType;
+    private final int hashCode;
 
-    public ArrayType(Type elementType) {
+    private ArrayType(Type elementType) {
         this.elementType = elementType;
+        this.hashCode = Objects.hash(ArrayType.class, elementType);
+    }
+
+    public static ArrayType of(Type elementType) {
+        return TypeInterner.intern(new ArrayType(elementType));
     }
 
     public Type getElementType() {
@@ -23,7 +28,7 @@ public class ArrayType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .variable("length", IntType.INSTANCE, Symbol.Modifier.VAL)
                 .operator(Operator.INDEX_GET, elementType, params -> params.parameter("index", IntType.INSTANCE))
@@ -31,7 +36,7 @@ public class ArrayType extends Type implements SymbolProvider {
                         params.parameter("index", IntType.INSTANCE).parameter("element", elementType)
                 )
                 .operator(Operator.ADD, this, params -> params.parameter("element", elementType))
-                .operator(Operator.ITERATOR, new ListType(elementType), UnaryOperator.identity())
+                .operator(Operator.ITERATOR, ListType.of(elementType), UnaryOperator.identity())
                 .build();
     }
 
@@ -59,7 +64,7 @@ public class ArrayType extends Type implements SymbolProvider {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(toString());
+        return hashCode;
     }
 
     @Override
@@ -67,6 +72,7 @@ public class ArrayType extends Type implements SymbolProvider {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ArrayType arrayType = (ArrayType) o;
+        if (hashCode != arrayType.hashCode) return false;
         return Objects.equals(elementType, arrayType.elementType);
     }
 
@@ -1,7 +1,6 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -9,7 +8,7 @@ import raylras.zen.model.symbol.SymbolFactory;
 import java.util.List;
 import java.util.function.UnaryOperator;
 
-public class BoolType extends Type implements SymbolProvider {
+public class BoolType extends BuiltinType {
 
     public static final BoolType INSTANCE = new BoolType();
 
@@ -27,7 +26,7 @@ public class BoolType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .operator(Operator.AND, this, params -> params.parameter("val", this))
                 .operator(Operator.OR, this, params -> params.parameter("val", this))
@@ -0,0 +1,34 @@
+package raylras.zen.model.type;
+
+import raylras.zen.model.SymbolProvider;
+import raylras.zen.model.symbol.Symbol;
+
+import java.util.List;
+
+/**
+ * A type whose members are declared by the language itself.
+ * <p>
+ * The types are singletons or interned, so the members are built once per type and then shared.
+ */
+public abstract class BuiltinType extends Type implements SymbolProvider {
+
+    private volatile MemberTable memberTable;
+
+    public MemberTable getMemberTable() {
+        MemberTable table = memberTable;
+        if (table == null) {
+            // a race only builds an equal table twice
+            table = new MemberTable(createMembers());
+            memberTable = table;
+        }
+        return table;
+    }
+
+    @Override
+    public List<Symbol> getSymbols() {
+        return getMemberTable().getSymbols();
+    }
+
+    protected abstract List<Symbol> createMembers();
+
+}
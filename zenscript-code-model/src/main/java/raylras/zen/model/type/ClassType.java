@@ -2,14 +2,18 @@ package raylras.zen.model.type;
 
 import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.ClassSymbol;
+import raylras.zen.model.symbol.ParseTreeLocatable;
 import raylras.zen.model.symbol.Symbol;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public class ClassType extends Type implements SymbolProvider {
 
     private final ClassSymbol symbol;
+    private volatile Members members;
 
     public ClassType(ClassSymbol symbol) {
         this.symbol = symbol;
@@ -21,12 +25,15 @@ public class ClassType extends Type implements SymbolProvider {
 
     @Override
     public Collection<Symbol> getSymbols() {
-        MemberValidator validator = new MemberValidator();
-        validator.addAll(symbol.getDeclaredMembers());
-        for (ClassType anInterface : symbol.getInterfaces()) {
-            validator.addAll(anInterface.getSymbols());
-        }
-        return validator.getMembers();
+        return getMemberTable().getSymbols();
+    }
+
+    /**
+     * The members declared by the class and inherited from its interfaces,
+     * rebuilt only after the unit of the class or of one of its interfaces has changed.
+     */
+    public MemberTable getMemberTable() {
+        return getMembers().table();
     }
 
     @Override
@@ -59,4 +66,53 @@ public class ClassType extends Type implements SymbolProvider {
     public int hashCode() {
         return Objects.hash(symbol.getQualifiedName());
     }
+
+    private Members getMembers() {
+        Members current = members;
+        if (current == null || !current.isValid(symbol)) {
+            current = createMembers();
+            members = current;
+        }
+        return current;
+    }
+
+    private Members createMembers() {
+        // taken before collecting, a change meanwhile leaves the members stale
+        long stamp = getTypeStamp(symbol);
+        MemberValidator validator = new MemberValidator();
+        validator.addAll(symbol.getDeclaredMembers());
+        List<ClassType> interfaces = symbol.getInterfaces();
+        List<Members> inheritedMembers = new ArrayList<>(interfaces.size());
+        for (ClassType anInterface : interfaces) {
+            Members inherited = anInterface.getMembers();
+            validator.addAll(inherited.table().getSymbols());
+            inheritedMembers.add(inherited);
+        }
+        MemberTable table = new MemberTable(validator.getMembers());
+        return new Members(table, stamp, interfaces, inheritedMembers);
+    }
+
+    private static long getTypeStamp(ClassSymbol symbol) {
+        if (symbol instanceof ParseTreeLocatable locatable) {
+            return locatable.getUnit().getTypeStamp();
+        }
+        return 0;
+    }
+
+    private record Members(MemberTable table, long stamp, List<ClassType> interfaces, List<Members> inheritedMembers) {
+        boolean isValid(ClassSymbol symbol) {
+            if (stamp != getTypeStamp(symbol)) {
+                return false;
+            }
+            for (int i = 0; i < interfaces.size(); i++) {
+                ClassType anInterface = interfaces.get(i);
+                Members inherited = inheritedMembers.get(i);
+                if (anInterface.members != inherited || !inherited.isValid(anInterface.symbol)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
 }
@@ -1,6 +1,8 @@
 package raylras.zen.model.type;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -9,15 +11,21 @@ public class FunctionType extends Type {
 
     private final Type returnType;
     private final List<Type> parameterTypes;
+    private final int hashCode;
 
-    public FunctionType(Type returnType, List<Type> parameterTypes) {
+    private FunctionType(Type returnType, List<Type> parameterTypes) {
         this.returnType = returnType;
-        this.parameterTypes = parameterTypes;
+        // the parameter types may be null, which List.copyOf does not allow
+        this.parameterTypes = Collections.unmodifiableList(new ArrayList<>(parameterTypes));
+        this.hashCode = Objects.hash(FunctionType.class, returnType, this.parameterTypes);
     }
 
-    public FunctionType(Type returnType, Type... parameterTypes) {
-        this.returnType = returnType;
-        this.parameterTypes = Arrays.asList(parameterTypes);
+    public static FunctionType of(Type returnType, List<Type> parameterTypes) {
+        return TypeInterner.intern(new FunctionType(returnType, parameterTypes));
+    }
+
+    public static FunctionType of(Type returnType, Type... parameterTypes) {
+        return of(returnType, Arrays.asList(parameterTypes));
     }
 
     public Type getReturnType() {
@@ -35,7 +43,7 @@ public class FunctionType extends Type {
 
     @Override
     public int hashCode() {
-        return Objects.hash(toString());
+        return hashCode;
     }
 
     @Override
@@ -43,6 +51,7 @@ public class FunctionType extends Type {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FunctionType that = (FunctionType) o;
+        if (hashCode != that.hashCode) return false;
         return Objects.equals(returnType, that.returnType) && Objects.equals(parameterTypes, that.parameterTypes);
     }
 }
@@ -1,6 +1,5 @@
 package raylras.zen.model.type;
 
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -8,7 +7,7 @@ import raylras.zen.model.symbol.SymbolFactory;
 import java.util.List;
 import java.util.function.UnaryOperator;
 
-public class IntRangeType extends Type implements SymbolProvider {
+public class IntRangeType extends BuiltinType {
 
     public static final IntRangeType INSTANCE = new IntRangeType();
 
@@ -18,11 +17,11 @@ public class IntRangeType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .variable("from", IntType.INSTANCE, Symbol.Modifier.VAL)
                 .variable("to", IntType.INSTANCE, Symbol.Modifier.VAL)
-                .operator(Operator.ITERATOR, new ListType(IntType.INSTANCE), UnaryOperator.identity())
+                .operator(Operator.ITERATOR, ListType.of(IntType.INSTANCE), UnaryOperator.identity())
                 .build();
     }
 }
@@ -11,9 +11,9 @@ public class IntType extends NumberType {
     public static final IntType INSTANCE = new IntType();
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
-                .add(super.getSymbols())
+                .add(super.createMembers())
                 .operator(Operator.RANGE, IntRangeType.INSTANCE, params -> params.parameter("val", this))
                 .build();
     }
@@ -1,7 +1,6 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -10,12 +9,18 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.UnaryOperator;
 
-public class ListType extends Type implements SymbolProvider {
+public class ListType extends BuiltinType {
 
     private final Type elementType;
+    private final int hashCode;
 
-    public ListType(Type elementType) {
+    private ListType(Type elementType) {
         this.elementType = elementType;
+        this.hashCode = Objects.hash(ListType.class, elementType);
+    }
+
+    public static ListType of(Type elementType) {
+        return TypeInterner.intern(new ListType(elementType));
     }
 
     public Type getElementType() {
@@ -23,7 +28,7 @@ public class ListType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .variable("length", IntType.INSTANCE, Symbol.Modifier.VAL)
                 .function("remove", VoidType.INSTANCE, params -> params.parameter("index", IntType.INSTANCE))
@@ -65,11 +70,12 @@ public class ListType extends Type implements SymbolProvider {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ListType symbols = (ListType) o;
+        if (hashCode != symbols.hashCode) return false;
         return Objects.equals(elementType, symbols.elementType);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(toString());
+        return hashCode;
     }
 }
@@ -1,20 +1,25 @@
 package raylras.zen.model.type;
 
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
 
 import java.util.List;
 import java.util.Objects;
 
-public class MapEntryType extends Type implements SymbolProvider {
+public class MapEntryType extends BuiltinType {
 
     private final Type keyType;
     private final Type valueType;
+    private final int hashCode;
 
-    public MapEntryType(Type keyType, Type valueType) {
+    private MapEntryType(Type keyType, Type valueType) {
         this.keyType = keyType;
         this.valueType = valueType;
+        this.hashCode = Objects.hash(MapEntryType.class, keyType, valueType);
+    }
+
+    public static MapEntryType of(Type keyType, Type valueType) {
+        return TypeInterner.intern(new MapEntryType(keyType, valueType));
     }
 
     public Type getKeyType() {
@@ -26,7 +31,7 @@ public class MapEntryType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .variable("key", keyType, Symbol.Modifier.VAL)
                 .variable("value", valueType, Symbol.Modifier.VAL)
@@ -43,11 +48,12 @@ public class MapEntryType extends Type implements SymbolProvider {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MapEntryType symbols = (MapEntryType) o;
+        if (hashCode != symbols.hashCode) return false;
         return Objects.equals(keyType, symbols.keyType) && Objects.equals(valueType, symbols.valueType);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(toString());
+        return hashCode;
     }
 }
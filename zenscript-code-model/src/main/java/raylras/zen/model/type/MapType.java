@@ -1,7 +1,6 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -10,14 +9,20 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.UnaryOperator;
 
-public class MapType extends Type implements SymbolProvider {
+public class MapType extends BuiltinType {
 
     private final Type keyType;
     private final Type valueType;
+    private final int hashCode;
 
-    public MapType(Type keyType, Type valueType) {
+    private MapType(Type keyType, Type valueType) {
         this.keyType = keyType;
         this.valueType = valueType;
+        this.hashCode = Objects.hash(MapType.class, keyType, valueType);
+    }
+
+    public static MapType of(Type keyType, Type valueType) {
+        return TypeInterner.intern(new MapType(keyType, valueType));
     }
 
     public Type getKeyType() {
@@ -29,14 +34,14 @@ public class MapType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .variable("length", IntType.INSTANCE, Symbol.Modifier.VAL)
-                .variable("keys", new ArrayType(keyType), Symbol.Modifier.VAL)
-                .variable("keySet", new ArrayType(keyType), Symbol.Modifier.VAL)
-                .variable("values", new ArrayType(valueType), Symbol.Modifier.VAL)
-                .variable("valueSet", new ArrayType(valueType), Symbol.Modifier.VAL)
-                .variable("entrySet", new ArrayType(new MapEntryType(keyType, valueType)), Symbol.Modifier.VAL)
+                .variable("keys", ArrayType.of(keyType), Symbol.Modifier.VAL)
+                .variable("keySet", ArrayType.of(keyType), Symbol.Modifier.VAL)
+                .variable("values", ArrayType.of(valueType), Symbol.Modifier.VAL)
+                .variable("valueSet", ArrayType.of(valueType), Symbol.Modifier.VAL)
+                .variable("entrySet", ArrayType.of(MapEntryType.of(keyType, valueType)), Symbol.Modifier.VAL)
                 .operator(Operator.INDEX_GET, valueType, params -> params.parameter("key", keyType))
                 .operator(Operator.INDEX_SET, VoidType.INSTANCE, params ->
                         params.parameter("key", keyType)
@@ -88,11 +93,12 @@ public class MapType extends Type implements SymbolProvider {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MapType symbols = (MapType) o;
+        if (hashCode != symbols.hashCode) return false;
         return Objects.equals(keyType, symbols.keyType) && Objects.equals(valueType, symbols.valueType);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(toString());
+        return hashCode;
     }
 }
@@ -0,0 +1,42 @@
+package raylras.zen.model.type;
+
+import raylras.zen.model.symbol.Operator;
+import raylras.zen.model.symbol.OperatorFunctionSymbol;
+import raylras.zen.model.symbol.Symbol;
+
+import java.util.*;
+
+/**
+ * The members of a type, indexed by name and by operator.
+ */
+public final class MemberTable {
+
+    private final List<Symbol> symbols;
+    private final Map<String, List<Symbol>> symbolsByName = new HashMap<>();
+    private final Map<Operator, List<OperatorFunctionSymbol>> operators = new EnumMap<>(Operator.class);
+
+    public MemberTable(Collection<Symbol> symbols) {
+        this.symbols = List.copyOf(symbols);
+        for (Symbol symbol : this.symbols) {
+            symbolsByName.computeIfAbsent(symbol.getName(), name -> new ArrayList<>(1)).add(symbol);
+            if (symbol instanceof OperatorFunctionSymbol operator) {
+                operators.computeIfAbsent(operator.getOperator(), key -> new ArrayList<>(1)).add(operator);
+            }
+        }
+        symbolsByName.replaceAll((name, list) -> List.copyOf(list));
+        operators.replaceAll((operator, list) -> List.copyOf(list));
+    }
+
+    public List<Symbol> getSymbols() {
+        return symbols;
+    }
+
+    public List<Symbol> getSymbols(String name) {
+        return symbolsByName.getOrDefault(name, List.of());
+    }
+
+    public List<OperatorFunctionSymbol> getOperators(Operator operator) {
+        return operators.getOrDefault(operator, List.of());
+    }
+
+}
@@ -1,7 +1,6 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
@@ -9,7 +8,7 @@ import raylras.zen.model.symbol.SymbolFactory;
 import java.util.List;
 import java.util.function.UnaryOperator;
 
-public abstract class NumberType extends Type implements SymbolProvider {
+public abstract class NumberType extends BuiltinType {
 
     @Override
     public boolean isInheritedFrom(Type type) {
@@ -28,7 +27,7 @@ public abstract class NumberType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .operator(Operator.ADD, this, params -> params.parameter("val", this))
                 .operator(Operator.SUB, this, params -> params.parameter("val", this))
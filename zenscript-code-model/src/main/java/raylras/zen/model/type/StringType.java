@@ -1,14 +1,13 @@
 package raylras.zen.model.type;
 
 import raylras.zen.model.CompilationEnvironment;
-import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Operator;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.SymbolFactory;
 
 import java.util.List;
 
-public class StringType extends Type implements SymbolProvider {
+public class StringType extends BuiltinType {
 
     public static final StringType INSTANCE = new StringType();
 
@@ -26,7 +25,7 @@ public class StringType extends Type implements SymbolProvider {
     }
 
     @Override
-    public List<Symbol> getSymbols() {
+    protected List<Symbol> createMembers() {
         return SymbolFactory.builtinSymbols()
                 .operator(Operator.ADD, this, params -> params.parameter("str", this))
                 .operator(Operator.CAT, this, params -> params.parameter("str", this))
@@ -0,0 +1,30 @@
+package raylras.zen.model.type;
+
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.util.GenerationCache;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the results of {@link Type#testSubtypeOf(Type, CompilationEnvironment)} of an env.
+ * <p>
+ * Testing for a caster searches the members and the expansions of a type, which overload resolution repeats
+ * for every argument of every candidate. Everything is dropped after the generation of the env changes.
+ */
+public class SubtypeCache {
+
+    private static final int MAX_CACHED_RESULTS = 65536;
+
+    private final GenerationCache<Key, SubtypeResult> results;
+
+    public SubtypeCache(LongSupplier generation) {
+        this.results = new GenerationCache<>(generation, MAX_CACHED_RESULTS);
+    }
+
+    SubtypeResult test(Type from, Type to, CompilationEnvironment env) {
+        return results.get(new Key(from, to), key -> from.computeSubtypeResult(to, env));
+    }
+
+    private record Key(Type from, Type to) {}
+
+}
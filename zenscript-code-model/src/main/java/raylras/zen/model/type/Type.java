@@ -13,6 +13,10 @@ public abstract class Type {
         if (this.equals(type)) {
             return SubtypeResult.SELF;
         }
+        return env.getSubtypeCache().test(this, type, env);
+    }
+
+    final SubtypeResult computeSubtypeResult(Type type, CompilationEnvironment env) {
         if (this.isInheritedFrom(type)) {
             return SubtypeResult.INHERIT;
         }
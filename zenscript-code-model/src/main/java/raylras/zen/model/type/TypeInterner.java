@@ -0,0 +1,31 @@
+package raylras.zen.model.type;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalizes the composite types, so that equal types are the same instance.
+ * <p>
+ * The types are held weakly, a type no longer referenced by any symbol is dropped.
+ */
+final class TypeInterner {
+
+    private static final Map<Type, WeakReference<Type>> TYPES = new WeakHashMap<>();
+
+    private TypeInterner() {
+    }
+
+    static synchronized <T extends Type> T intern(T type) {
+        WeakReference<Type> reference = TYPES.get(type);
+        Type interned = (reference != null) ? reference.get() : null;
+        if (interned == null) {
+            TYPES.put(type, new WeakReference<>(type));
+            return type;
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) interned;
+        return result;
+    }
+
+}
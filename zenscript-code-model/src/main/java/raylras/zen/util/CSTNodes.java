@@ -17,6 +17,9 @@ public class CSTNodes {
         return deque.peekFirst();
     }
 
+    /**
+     * Searches from the root on each call, the lookups on a unit should go through {@link PositionIndex} instead.
+     */
     public static Deque<ParseTree> getCstStackAtPosition(ParseTree root, Position pos) {
         Queue<ParseTree> tempQueue = new ArrayDeque<>();
         tempQueue.add(root);
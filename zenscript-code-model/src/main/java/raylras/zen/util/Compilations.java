@@ -3,37 +3,70 @@ package raylras.zen.util;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import raylras.zen.model.CompilationEnvironment;
 import raylras.zen.model.CompilationUnit;
 import raylras.zen.model.Document;
+import raylras.zen.model.index.StubIndex;
 import raylras.zen.model.parser.ZenScriptLexer;
 import raylras.zen.model.parser.ZenScriptParser;
 import raylras.zen.model.resolve.DeclarationResolver;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 public class Compilations {
 
     private static final Logger logger = LoggerFactory.getLogger(Compilations.class);
 
+    private static final int LOADER_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     public static void loadEnv(CompilationEnvironment env) {
-        env.getUnitMap().clear();
-        // Most of the files under 'env' are correct, allowing for a faster parsing strategy.
-        for (File unitFile : collectUnitFiles(env)) {
-            CompilationUnit unit = env.createUnit(unitFile.toPath());
-            loadUnit(unit);
+        env.clearUnits();
+        StopWatch sw = new StopWatch();
+        sw.start();
+        List<File> unitFiles = List.copyOf(collectUnitFiles(env));
+        // Parsing the declarations first builds most of the DFA before the units are loaded concurrently.
+        DFACacheManager.warmUp(unitFiles.stream()
+                .map(File::toPath)
+                .filter(PathUtils::isDzsFile)
+                .toList());
+        // Units are independent of each other while resolving declarations, load them in parallel.
+        // A dedicated pool keeps the loading from starving the common pool used by the providers.
+        StubIndex stubIndex = StubIndex.open(env);
+        ForkJoinPool pool = new ForkJoinPool(LOADER_PARALLELISM);
+        try {
+            pool.submit(() -> unitFiles.parallelStream().forEach(unitFile -> {
+                // Most of the files under 'env' are correct, allowing for a faster parsing strategy.
+                CompilationUnit unit = env.createUnit(unitFile.toPath());
+                if (loadStubs(unit, stubIndex) || loadFile(unit)) {
+                    // Nothing has been resolved against the units yet, so no dependent needs to be invalidated.
+                    env.index(unit);
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
         }
+        stubIndex.updateIfNeeded(env);
+        sw.stop();
+        logger.info("Loaded {} units of env {} with {} threads [{}ms]", unitFiles.size(), env, LOADER_PARALLELISM, sw.getFormattedMillis());
+        logger.info("Parse statistics: {}", ParseStatistics.global());
     }
 
     private static Set<File> collectUnitFiles(CompilationEnvironment env) {
@@ -53,15 +86,46 @@ public class Compilations {
         return units;
     }
 
+    /**
+     * Loads the unit from its indexed stub tokens, without updating the indexes of the env.
+     *
+     * @return false if the unit is not indexed, or if its entry cannot be loaded and has been dropped
+     */
+    private static boolean loadStubs(CompilationUnit unit, StubIndex stubIndex) {
+        try {
+            TokenSource stubs = stubIndex.getTokenSource(unit);
+            if (stubs == null) {
+                return false;
+            }
+            CommonTokenStream tokenStream = new CommonTokenStream(stubs);
+            resolveUnit(unit, adaptiveParse(unit, tokenStream, createParser(tokenStream)));
+            return true;
+        } catch (Exception e) {
+            // a corrupt entry only costs the unit a parse from its file
+            logger.warn("Failed to load unit {} from the stub index, loading it from the file", unit, e);
+            stubIndex.drop(unit);
+            return false;
+        }
+    }
+
+    /**
+     * Loads the unit from its file, without updating the indexes of the env.
+     *
+     * @return false if the file cannot be loaded
+     */
+    private static boolean loadFile(CompilationUnit unit) {
+        try {
+            resolveUnit(unit, parseFile(unit));
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to load unit: {}", unit, e);
+            return false;
+        }
+    }
+
     public static void loadUnit(CompilationUnit unit) {
-        // The source from disk probably has no syntax errors, using the faster parsing strategy.
         try {
-            CharStream charStream = CharStreams.fromPath(unit.getPath(), StandardCharsets.UTF_8);
-            CommonTokenStream tokenStream = lex(charStream);
-            ParseTree parseTree = fastParse(tokenStream);
-            unit.setTokenStream(tokenStream);
-            unit.setParseTree(parseTree);
-            DeclarationResolver.resolveDeclarations(unit);
+            loadUnit(unit, parseFile(unit));
         } catch (Exception e) {
             logger.error("Failed to load unit: {}", unit, e);
         }
@@ -73,36 +137,126 @@ public class Compilations {
         }
     }
 
+    /**
+     * Reloads the unit after the given change, reparsing only the affected top-level element when possible.
+     */
+    public static void reload(Document document, String source, TextChange change) {
+        if (!reparse(document, source, change)) {
+            reload(document, source);
+        }
+    }
+
+    /**
+     * Reparses only the top-level element affected by the given change.
+     *
+     * @return false if the change requires a full reparse
+     */
+    public static boolean reparse(Document document, String source, TextChange change) {
+        return document.getUnit()
+                .map(unit -> reparse(unit, source, change).isPresent())
+                .orElse(false);
+    }
+
+    /**
+     * @return the other units affected by the change, or empty if the change requires a full reparse
+     */
+    public static Optional<Set<CompilationUnit>> reparse(CompilationUnit unit, String source, TextChange change) {
+        if (IncrementalReparser.reparse(unit, source, change)) {
+            return Optional.of(unit.getEnv().reindex(unit));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Parses the source without modifying the unit, so that it can be done without holding the lock of the env.
+     *
+     * @param cancelled checked while parsing, a cancelled parse throws {@link CancellationException}
+     */
+    public static ParseResult parse(CompilationUnit unit, String source, BooleanSupplier cancelled) {
+        CharStream charStream = CharStreams.fromString(source, String.valueOf(unit.getPath()));
+        CommonTokenStream tokenStream = lex(charStream);
+        ZenScriptParser parser = createParser(tokenStream);
+        parser.addParseListener(new ParseTreeListener() {
+            @Override
+            public void enterEveryRule(ParserRuleContext ctx) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Parsing of " + unit + " has been cancelled");
+                }
+            }
+
+            @Override
+            public void visitTerminal(TerminalNode node) {
+            }
+
+            @Override
+            public void visitErrorNode(ErrorNode node) {
+            }
+
+            @Override
+            public void exitEveryRule(ParserRuleContext ctx) {
+            }
+        });
+        return adaptiveParse(unit, tokenStream, parser);
+    }
+
     public static void loadUnit(CompilationUnit unit, String source) {
-        // The source from LSP may have some syntax errors, using the default parsing strategy.
         CharStream charStream = CharStreams.fromString(source, String.valueOf(unit.getPath()));
         loadUnit(unit, charStream);
     }
 
     public static void loadUnit(CompilationUnit unit, CharStream charStream) {
         CommonTokenStream tokenStream = lex(charStream);
-        ParseTree parseTree = parse(tokenStream);
-        unit.setTokenStream(tokenStream);
-        unit.setParseTree(parseTree);
+        loadUnit(unit, adaptiveParse(unit, tokenStream, createParser(tokenStream)));
+    }
+
+    /**
+     * @return the other units affected by the change of the unit
+     */
+    public static Set<CompilationUnit> loadUnit(CompilationUnit unit, ParseResult result) {
+        resolveUnit(unit, result);
+        return unit.getEnv().reindex(unit);
+    }
+
+    private static ParseResult parseFile(CompilationUnit unit) throws IOException {
+        CommonTokenStream tokenStream = lexFile(unit.getPath());
+        return adaptiveParse(unit, tokenStream, createParser(tokenStream));
+    }
+
+    private static void resolveUnit(CompilationUnit unit, ParseResult result) {
+        unit.setTokenTable(result.tokenTable());
+        unit.setParseTree(result.parseTree());
+        unit.setSyntaxErrors(result.syntaxErrors());
         DeclarationResolver.resolveDeclarations(unit);
     }
 
+    /**
+     * Lexes the file the way it is loaded into an env.
+     * The tokens of a generated declaration file are its stubs, the same as the ones of the stub index.
+     */
+    public static CommonTokenStream lexFile(Path path) throws IOException {
+        CharStream charStream = MappedCharStream.fromPath(path);
+        // Generated declaration files only contribute declarations.
+        return PathUtils.isDzsFile(path) ? lexStubs(charStream) : lex(charStream);
+    }
+
     public static CommonTokenStream lex(CharStream charStream) {
-        ZenScriptLexer lexer = new ZenScriptLexer(charStream);
-        lexer.removeErrorListeners();
-        return new CommonTokenStream(lexer);
+        return new CommonTokenStream(createLexer(charStream));
+    }
+
+    /**
+     * Lexes only the tokens contributing to the declarations, function bodies and typed initializers are skipped.
+     */
+    public static CommonTokenStream lexStubs(CharStream charStream) {
+        return new CommonTokenStream(new StubTokenSource(createLexer(charStream)));
     }
 
     public static ParseTree parse(TokenStream tokenStream) {
-        ZenScriptParser parser = new ZenScriptParser(tokenStream);
-        parser.removeErrorListeners();
-        return parser.compilationUnit();
+        return createParser(tokenStream).compilationUnit();
     }
 
     public static ParseTree fastParse(TokenStream tokenStream) {
         // The faster parsing strategy, only effective when the source has no syntax errors.
-        ZenScriptParser parser = new ZenScriptParser(tokenStream);
-        parser.removeErrorListeners();
+        ZenScriptParser parser = createParser(tokenStream);
         parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
         parser.setErrorHandler(new BailErrorStrategy());
         try {
@@ -115,4 +269,71 @@ public class Compilations {
         }
     }
 
+    static ZenScriptLexer createLexer(CharStream charStream) {
+        ZenScriptLexer lexer = new ZenScriptLexer(charStream);
+        lexer.removeErrorListeners();
+        // Allows the tokens to be reused by incremental reparsing.
+        lexer.setTokenFactory(RebasableToken.FACTORY);
+        DFACacheManager.install(lexer);
+        return lexer;
+    }
+
+    static ZenScriptParser createParser(TokenStream tokenStream) {
+        ZenScriptParser parser = new ZenScriptParser(tokenStream);
+        parser.removeErrorListeners();
+        DFACacheManager.install(parser);
+        return parser;
+    }
+
+    /**
+     * Parses with SLL first, which is much faster but only succeeds when the source has no syntax errors,
+     * falling back to LL on failure. Units that keep failing skip the SLL stage.
+     */
+    private static ParseResult adaptiveParse(CompilationUnit unit, CommonTokenStream tokenStream, ZenScriptParser parser) {
+        ParseStatistics statistics = unit.getParseStatistics();
+        boolean trySll = statistics.shouldTrySll();
+        if (trySll) {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            try {
+                ParseTree parseTree = parser.compilationUnit();
+                statistics.recordSllSuccess();
+                return new ParseResult(TokenTable.of(tokenStream), parseTree, List.of());
+            } catch (ParseCancellationException e) {
+                statistics.recordSllBailout();
+                logger.debug("SLL parsing bailed out on {}, falling back to LL", unit);
+                parser.reset();
+            }
+        }
+        // Only the LL stage reports the errors, the SLL stage bails out on the first one.
+        SyntaxErrorCollector syntaxErrors = new SyntaxErrorCollector();
+        parser.addErrorListener(syntaxErrors);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        ParseTree parseTree = parser.compilationUnit();
+        parser.removeErrorListener(syntaxErrors);
+        statistics.recordLlParse(!trySll);
+        return new ParseResult(TokenTable.of(tokenStream), parseTree, syntaxErrors.getSyntaxErrors());
+    }
+
+    private static final class SyntaxErrorCollector extends BaseErrorListener {
+        private final List<SyntaxError> syntaxErrors = new ArrayList<>();
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+            Range range;
+            if (offendingSymbol instanceof Token token && token.getType() != Token.EOF) {
+                range = Range.of(token);
+            } else {
+                Position position = Position.of(line - Range.ANTLR_FIRST_LINE, charPositionInLine);
+                range = new Range(position, position);
+            }
+            syntaxErrors.add(new SyntaxError(range, msg));
+        }
+
+        List<SyntaxError> getSyntaxErrors() {
+            return List.copyOf(syntaxErrors);
+        }
+    }
+
 }
@@ -0,0 +1,149 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import raylras.zen.model.parser.ZenScriptLexer;
+import raylras.zen.model.parser.ZenScriptParser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manages the DFA and prediction context caches shared by the lexers and parsers.
+ * <p>
+ * ANTLR builds the DFA lazily and never shrinks it, so the first parses after startup are slow
+ * and the caches keep growing over a long session.
+ * The caches are primed by {@link #warmUp(List)}, and are dropped and rebuilt
+ * once they hold more than {@code zenscript.dfa.maxStates} states.
+ */
+public final class DFACacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(DFACacheManager.class);
+
+    private static final int MAX_STATES = Integer.getInteger("zenscript.dfa.maxStates", 500_000);
+    private static final int WARM_UP_FILES = Integer.getInteger("zenscript.dfa.warmUpFiles", 16);
+    // counting the states walks every DFA, so it is only done once every so many parsers
+    private static final int TRIM_CHECK_INTERVAL = 64;
+
+    private static volatile Caches lexerCaches = Caches.create(ZenScriptLexer._ATN);
+    private static volatile Caches parserCaches = Caches.create(ZenScriptParser._ATN);
+    private static volatile List<Path> warmUpSamples = List.of();
+    private static volatile int warmedUpStates;
+    private static final AtomicBoolean rebuilding = new AtomicBoolean();
+    private static final AtomicInteger installedParsers = new AtomicInteger();
+
+    private DFACacheManager() {}
+
+    public static void install(ZenScriptLexer lexer) {
+        Caches caches = lexerCaches;
+        lexer.setInterpreter(new LexerATNSimulator(lexer, ZenScriptLexer._ATN, caches.decisionToDFA(), caches.contextCache()));
+    }
+
+    public static void install(ZenScriptParser parser) {
+        if (installedParsers.incrementAndGet() % TRIM_CHECK_INTERVAL == 0) {
+            trimIfNeeded();
+        }
+        Caches caches = parserCaches;
+        parser.setInterpreter(new ParserATNSimulator(parser, ZenScriptParser._ATN, caches.decisionToDFA(), caches.contextCache()));
+    }
+
+    /**
+     * Primes the caches by parsing an evenly spread sample of the given files, lexed as they are loaded.
+     */
+    public static void warmUp(List<Path> files) {
+        List<Path> samples = selectSamples(files);
+        warmUpSamples = samples;
+        StopWatch sw = new StopWatch();
+        sw.start();
+        for (Path sample : samples) {
+            try {
+                Compilations.fastParse(Compilations.lexFile(sample));
+            } catch (Exception e) {
+                logger.warn("Failed to warm up the DFA with {}", sample, e);
+            }
+        }
+        sw.stop();
+        warmedUpStates = getParserStateCount() + getLexerStateCount();
+        logger.info("Warmed up the DFA with {} files, {} parser states, {} lexer states [{}ms]",
+                samples.size(), getParserStateCount(), getLexerStateCount(), sw.getFormattedMillis());
+    }
+
+    /**
+     * Drops the caches if they are too large, and rebuilds them in the background.
+     * The parsers already running keep using the old caches.
+     */
+    public static void trimIfNeeded() {
+        int states = getParserStateCount() + getLexerStateCount();
+        // never clear the caches just because of the warm-up itself
+        int limit = Math.max(MAX_STATES, warmedUpStates * 2);
+        if (states > limit && rebuilding.compareAndSet(false, true)) {
+            clear();
+            logger.info("Cleared the DFA caches of {} states, exceeding the limit of {}", states, limit);
+            CompletableFuture.runAsync(() -> warmUp(warmUpSamples))
+                    .whenComplete((result, e) -> rebuilding.set(false));
+        }
+    }
+
+    public static void clear() {
+        lexerCaches = Caches.create(ZenScriptLexer._ATN);
+        parserCaches = Caches.create(ZenScriptParser._ATN);
+    }
+
+    public static int getParserStateCount() {
+        return parserCaches.stateCount();
+    }
+
+    public static int getLexerStateCount() {
+        return lexerCaches.stateCount();
+    }
+
+    public static int getPredictionContextCount() {
+        return parserCaches.contextCache().size() + lexerCaches.contextCache().size();
+    }
+
+    /* Private Methods */
+
+    private static List<Path> selectSamples(List<Path> files) {
+        List<Path> sorted = files.stream().sorted(Comparator.naturalOrder()).toList();
+        if (sorted.size() <= WARM_UP_FILES) {
+            return sorted;
+        }
+        List<Path> samples = new ArrayList<>(WARM_UP_FILES);
+        double step = (double) sorted.size() / WARM_UP_FILES;
+        for (int i = 0; i < WARM_UP_FILES; i++) {
+            samples.add(sorted.get((int) (i * step)));
+        }
+        return samples;
+    }
+
+    /* End Private Methods */
+
+    private record Caches(DFA[] decisionToDFA, PredictionContextCache contextCache) {
+        static Caches create(ATN atn) {
+            DFA[] decisionToDFA = new DFA[atn.getNumberOfDecisions()];
+            for (int i = 0; i < decisionToDFA.length; i++) {
+                decisionToDFA[i] = new DFA(atn.getDecisionState(i), i);
+            }
+            return new Caches(decisionToDFA, new PredictionContextCache());
+        }
+
+        int stateCount() {
+            int count = 0;
+            for (DFA dfa : decisionToDFA) {
+                count += dfa.states.size();
+            }
+            return count;
+        }
+    }
+
+}
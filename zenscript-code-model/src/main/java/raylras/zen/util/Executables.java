@@ -9,7 +9,6 @@ import raylras.zen.model.type.FunctionType;
 import raylras.zen.model.type.SubtypeResult;
 import raylras.zen.model.type.Type;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,14 +23,15 @@ public class Executables {
         SubtypeResult functionMatchingResult = SubtypeResult.SELF;
         int parameters = parameterList.size();
         int arguments = argumentTypeList.size();
-        for (int i = 0; i < Math.max(parameters, arguments); i++) {
+        for (int i = 0; i < Math.max(parameters, arguments) && functionMatchingResult.matched(); i++) {
             if (i < parameters && i < arguments) {
                 functionMatchingResult = SubtypeResult.higher(functionMatchingResult, argumentTypeList.get(i).testSubtypeOf(parameterList.get(i).getType(), env));
-            } else if (i > arguments) {
-                functionMatchingResult = SubtypeResult.higher(functionMatchingResult, parameterList.get(i).isOptional() ? SubtypeResult.SELF : SubtypeResult.MISMATCH);
-            } else if (i > parameters) {
-                ParameterSymbol lastParameter = parameterList.get(parameterList.size() - 1);
-                if (lastParameter.isVararg()) {
+            } else if (i >= arguments) {
+                ParameterSymbol parameter = parameterList.get(i);
+                functionMatchingResult = SubtypeResult.higher(functionMatchingResult, parameter.isOptional() || parameter.isVararg() ? SubtypeResult.SELF : SubtypeResult.MISMATCH);
+            } else {
+                ParameterSymbol lastParameter = (parameters > 0) ? parameterList.get(parameters - 1) : null;
+                if (lastParameter != null && lastParameter.isVararg()) {
                     functionMatchingResult = SubtypeResult.higher(functionMatchingResult, argumentTypeList.get(i).testSubtypeOf(lastParameter.getType(), env));
                 } else {
                     functionMatchingResult = SubtypeResult.MISMATCH;
@@ -41,32 +41,34 @@ public class Executables {
         return functionMatchingResult;
     }
 
-    public static Executable findBestMatch(List<Executable> functions, List<Type> argumentTypeList, CompilationEnvironment env) {
-        return functions.stream()
-                .min(Comparator.comparing(it -> matchArguments(it, argumentTypeList, env), SubtypeResult.PRIORITY_COMPARATOR))
-                .orElse(null);
+    /**
+     * @return the number of the parameters up to the last one which is neither optional nor vararg
+     */
+    public static int getMinArity(Executable function) {
+        List<ParameterSymbol> parameterList = function.getParameterList();
+        for (int i = parameterList.size() - 1; i >= 0; i--) {
+            ParameterSymbol parameter = parameterList.get(i);
+            if (!parameter.isOptional() && !parameter.isVararg()) {
+                return i + 1;
+            }
+        }
+        return 0;
     }
 
-    public static Type predictNextArgumentType(List<Executable> functions, List<Type> argumentTypes, CompilationEnvironment env) {
-        Type found = null;
-        SubtypeResult foundMatchingResult = SubtypeResult.MISMATCH;
-        for (Executable function : functions) {
-            List<ParameterSymbol> parameterList = function.getParameterList();
-            SubtypeResult functionMatchingResult = SubtypeResult.SELF;
-            if (argumentTypes.size() >= parameterList.size()) {
-                continue;
-            }
-            for (int i = 0; i < argumentTypes.size(); i++) {
-                Type argType = argumentTypes.get(i);
-                Type paramType = parameterList.get(i).getType();
-                functionMatchingResult = SubtypeResult.higher(functionMatchingResult, argType.testSubtypeOf(paramType, env));
-            }
-            if (functionMatchingResult.priority < foundMatchingResult.priority) {
-                found = parameterList.get(argumentTypes.size()).getType();
-                foundMatchingResult = functionMatchingResult;
-            }
+    public static int getMaxArity(Executable function) {
+        List<ParameterSymbol> parameterList = function.getParameterList();
+        if (!parameterList.isEmpty() && parameterList.get(parameterList.size() - 1).isVararg()) {
+            return Integer.MAX_VALUE;
         }
-        return found;
+        return parameterList.size();
+    }
+
+    public static Executable findBestMatch(Type owner, String name, List<Type> argumentTypeList, CompilationEnvironment env) {
+        return env.getOverloads(owner, name).findBestMatch(argumentTypeList, env);
+    }
+
+    public static Type predictNextArgumentType(Type owner, String name, List<Type> argumentTypes, CompilationEnvironment env) {
+        return env.getOverloads(owner, name).predictNextArgumentType(argumentTypes, env);
     }
 
     public static Optional<FunctionType> findLambdaForm(ClassType type, CompilationEnvironment env) {
@@ -0,0 +1,62 @@
+package raylras.zen.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the values derived from a state identified by a generation, such as the one of a {@link raylras.zen.model.SymbolIndex}.
+ * <p>
+ * Every value is dropped once the generation changes, and the whole cache is cleared when it reaches its maximum size.
+ * The values are computed outside the map rather than by {@link Map#computeIfAbsent},
+ * since computing a value may look up other values of the same cache.
+ */
+public final class GenerationCache<K, V> {
+
+    private final LongSupplier generation;
+    private final int maxSize;
+    private volatile Snapshot<K, V> snapshot;
+
+    public GenerationCache(LongSupplier generation, int maxSize) {
+        this.generation = generation;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cached value of the key, or the one computed by the loader,
+     * unless another thread has cached a value meanwhile
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Map<K, V> values = getValues();
+        V value = values.get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (values.size() >= maxSize) {
+                values.clear();
+            }
+            V previous = values.putIfAbsent(key, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return value;
+    }
+
+    /* Private Methods */
+
+    private Map<K, V> getValues() {
+        long currentGeneration = generation.getAsLong();
+        Snapshot<K, V> current = snapshot;
+        if (current == null || current.generation() != currentGeneration) {
+            current = new Snapshot<>(currentGeneration, new ConcurrentHashMap<>());
+            snapshot = current;
+        }
+        return current.values();
+    }
+
+    /* End Private Methods */
+
+    private record Snapshot<K, V>(long generation, Map<K, V> values) {}
+
+}
@@ -0,0 +1,256 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.model.parser.ZenScriptLexer;
+import raylras.zen.model.parser.ZenScriptParser;
+import raylras.zen.model.parser.ZenScriptParser.CompilationUnitContext;
+import raylras.zen.model.parser.ZenScriptParser.TopLevelElementContext;
+import raylras.zen.model.resolve.DeclarationResolver;
+import raylras.zen.model.symbol.ParseTreeLocatable;
+import raylras.zen.model.symbol.Symbol;
+
+import java.util.*;
+
+/**
+ * Reparses only the top-level element enclosing an edit,
+ * and splices the result into the existing parse tree of the unit.
+ * <p>
+ * The scopes and symbols of the untouched elements are kept,
+ * and their tokens are shifted to the new source instead of being lexed again.
+ */
+final class IncrementalReparser {
+
+    private IncrementalReparser() {}
+
+    /**
+     * Updates the unit without reindexing it.
+     *
+     * @return true if the unit has been updated, false if the change requires a full reparse
+     */
+    static boolean reparse(CompilationUnit unit, String source, TextChange change) {
+        // Error recovery may have shaped the old tree differently from a clean parse.
+        if (unit.getSyntaxErrorCount() > 0 || !(unit.getParseTree() instanceof CompilationUnitContext root)) {
+            return false;
+        }
+        TokenTable oldTable = unit.getTokenTable();
+        if (oldTable == null || oldTable.size() == 0 || oldTable.getType(oldTable.size() - 1) != Token.EOF
+                || oldTable.getStartIndex(oldTable.size() - 1) + change.delta() != source.length()) {
+            return false;
+        }
+
+        int elementIndex = findEnclosingElement(root, change);
+        if (elementIndex < 0) {
+            return false;
+        }
+        TopLevelElementContext oldElement = (TopLevelElementContext) root.getChild(elementIndex);
+        if (!isSelfDelimited(oldElement)) {
+            return false;
+        }
+        List<RebasableToken> leadingTokens = new ArrayList<>();
+        List<RebasableToken> trailingTokens = new ArrayList<>();
+        if (!collectTokens(root, elementIndex, leadingTokens, trailingTokens)) {
+            return false;
+        }
+
+        CharStream charStream = CharStreams.fromString(source, String.valueOf(unit.getPath()));
+        List<Token> newTokens = relex(charStream, oldElement.start, oldElement.stop.getStopIndex() + change.delta());
+        if (newTokens == null) {
+            return false;
+        }
+        Token newStop = newTokens.get(newTokens.size() - 1);
+        if (newStop.getType() != oldElement.stop.getType()) {
+            return false;
+        }
+        TopLevelElementContext newElement = parseElement(newTokens);
+        if (newElement == null || !isSelfDelimited(newElement)) {
+            return false;
+        }
+
+        TokenTable tokenTable = spliceTokens(oldTable, leadingTokens, trailingTokens, oldElement, newTokens, change);
+        root.children.set(elementIndex, newElement);
+        newElement.setParent(root);
+        newElement.invokingState = oldElement.invokingState;
+        if (root.start == oldElement.start) {
+            root.start = newElement.start;
+        }
+        unit.setTokenTable(tokenTable);
+
+        removeDeclarations(unit, oldElement);
+        DeclarationResolver.resolveDeclarations(unit, newElement);
+        unit.getScope(unit.getParseTree()).sortSymbols(Comparator.comparingInt(IncrementalReparser::getStartTokenIndex));
+        return true;
+    }
+
+    /* Private Methods */
+
+    /**
+     * Collects the tokens referenced by the parse tree before and after the given element.
+     *
+     * @return false if any of them cannot be rebased
+     */
+    private static boolean collectTokens(CompilationUnitContext root, int elementIndex, List<RebasableToken> leading, List<RebasableToken> trailing) {
+        Deque<ParseTree> stack = new ArrayDeque<>();
+        for (int i = 0; i < root.getChildCount(); i++) {
+            if (i == elementIndex) {
+                continue;
+            }
+            List<RebasableToken> tokens = (i < elementIndex) ? leading : trailing;
+            stack.push(root.getChild(i));
+            while (!stack.isEmpty()) {
+                ParseTree node = stack.pop();
+                if (node instanceof TerminalNode terminal) {
+                    if (!(terminal.getSymbol() instanceof RebasableToken token)) {
+                        return false;
+                    }
+                    tokens.add(token);
+                }
+                for (int j = node.getChildCount() - 1; j >= 0; j--) {
+                    stack.push(node.getChild(j));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the top-level element that strictly encloses the change, or -1 if there is none.
+     */
+    private static int findEnclosingElement(CompilationUnitContext root, TextChange change) {
+        // the last child is EOF
+        int low = 0;
+        int high = root.getChildCount() - 2;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            ParseTree child = root.getChild(mid);
+            if (!(child instanceof TopLevelElementContext element)) {
+                return -1;
+            }
+            if (element.start.getStartIndex() < change.start()) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return -1;
+        }
+        TopLevelElementContext element = (TopLevelElementContext) root.getChild(found);
+        if (element.stop == null || change.oldEnd() > element.stop.getStartIndex()) {
+            return -1;
+        }
+        return found;
+    }
+
+    /**
+     * Whether the element ends with a token that no following token could continue,
+     * so that the full parser would have ended the element at the same place.
+     */
+    private static boolean isSelfDelimited(TopLevelElementContext element) {
+        if (element.stop == null) {
+            return false;
+        }
+        return switch (element.stop.getType()) {
+            case ZenScriptLexer.SEMICOLON -> true;
+            // a statement ending with '}' may be followed by 'else'
+            case ZenScriptLexer.BRACE_CLOSE -> element.classDeclaration() != null
+                    || element.functionDeclaration() != null
+                    || element.expandFunctionDeclaration() != null;
+            default -> false;
+        };
+    }
+
+    /**
+     * Lexes the new source from the start token, returns null if the last token does not end exactly at the stop index.
+     */
+    private static List<Token> relex(CharStream charStream, Token start, int stopIndex) {
+        ZenScriptLexer lexer = Compilations.createLexer(charStream);
+        charStream.seek(start.getStartIndex());
+        lexer.setLine(start.getLine());
+        lexer.setCharPositionInLine(start.getCharPositionInLine());
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            if (token.getType() == Token.EOF) {
+                return null;
+            }
+            tokens.add(token);
+        } while (token.getStopIndex() < stopIndex);
+        return (token.getStopIndex() == stopIndex) ? tokens : null;
+    }
+
+    private static TopLevelElementContext parseElement(List<Token> tokens) {
+        ZenScriptParser parser = Compilations.createParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            TopLevelElementContext element = parser.topLevelElement();
+            return (parser.getCurrentToken().getType() == Token.EOF) ? element : null;
+        } catch (ParseCancellationException e) {
+            return null;
+        }
+    }
+
+    private static TokenTable spliceTokens(TokenTable oldTable, List<RebasableToken> leadingTokens, List<RebasableToken> trailingTokens,
+                                           TopLevelElementContext oldElement, List<Token> newTokens, TextChange change) {
+        Token oldStart = oldElement.start;
+        Token oldStop = oldElement.stop;
+        Token newStop = newTokens.get(newTokens.size() - 1);
+        Pair<TokenSource, CharStream> source = new Pair<>(newStop.getTokenSource(), newStop.getInputStream());
+        int lineDelta = newStop.getLine() - oldStop.getLine();
+        int columnDelta = newStop.getCharPositionInLine() - oldStop.getCharPositionInLine();
+        int tokenIndexDelta = newTokens.size() - (oldStop.getTokenIndex() - oldStart.getTokenIndex() + 1);
+
+        for (RebasableToken token : leadingTokens) {
+            token.rebase(source, 0, 0, 0);
+        }
+        for (int i = 0; i < newTokens.size(); i++) {
+            ((WritableToken) newTokens.get(i)).setTokenIndex(oldStart.getTokenIndex() + i);
+        }
+        for (RebasableToken token : trailingTokens) {
+            // only the tokens on the same line as the stop token are moved horizontally
+            int tokenColumnDelta = (token.getLine() == oldStop.getLine()) ? columnDelta : 0;
+            token.rebase(source, change.delta(), lineDelta, tokenColumnDelta);
+            token.setTokenIndex(token.getTokenIndex() + tokenIndexDelta);
+        }
+        return oldTable.splice(oldStart.getTokenIndex(), oldStop.getTokenIndex(), newTokens, source.b, change.delta(), lineDelta, columnDelta);
+    }
+
+    private static void removeDeclarations(CompilationUnit unit, ParseTree cst) {
+        Set<Symbol> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ParseTree> stack = new ArrayDeque<>();
+        stack.push(cst);
+        while (!stack.isEmpty()) {
+            ParseTree node = stack.pop();
+            if (node instanceof ParserRuleContext) {
+                unit.removeScope(node);
+                Symbol symbol = unit.removeSymbol(node);
+                if (symbol != null) {
+                    removed.add(symbol);
+                }
+                for (int i = 0; i < node.getChildCount(); i++) {
+                    stack.push(node.getChild(i));
+                }
+            }
+        }
+        unit.getScope(unit.getParseTree()).removeSymbols(removed::contains);
+    }
+
+    private static int getStartTokenIndex(Symbol symbol) {
+        if (symbol instanceof ParseTreeLocatable locatable && locatable.getCst() instanceof ParserRuleContext cst) {
+            return cst.start.getTokenIndex();
+        }
+        return -1;
+    }
+
+    /* End Private Methods */
+
+}
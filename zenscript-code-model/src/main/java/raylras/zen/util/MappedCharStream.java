@@ -0,0 +1,282 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharStream} decoded from UTF-8 in a single pass over the file, without intermediate buffers.
+ * <p>
+ * Large files are memory-mapped instead of being read onto the heap, the mapping is only used while decoding.
+ * The text is kept as one byte per char if it is Latin-1, otherwise as UTF-16.
+ * Files containing supplementary characters or malformed input fall back to {@link CharStreams#fromPath(Path)}.
+ */
+public abstract class MappedCharStream implements CharStream {
+
+    private static final int MAPPING_THRESHOLD = 64 * 1024;
+
+    private final String name;
+    private final int size;
+    private int position;
+
+    private MappedCharStream(String name, int size) {
+        this.name = name;
+        this.size = size;
+    }
+
+    public static CharStream fromPath(Path path) throws IOException {
+        CharStream charStream;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + path);
+            }
+            ByteBuffer bytes;
+            if (length >= MAPPING_THRESHOLD) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } else {
+                bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+            }
+            charStream = decode(bytes, path.toString());
+        }
+        return (charStream != null) ? charStream : CharStreams.fromPath(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wraps chars that are already decoded, one byte per char if Latin-1, otherwise as UTF-16.
+     * The buffer is not copied, so a read-only mapping can be shared by several streams.
+     */
+    public static CharStream wrap(ByteBuffer chars, boolean latin1, String name) {
+        return latin1 ? new Latin1Buffer(name, chars) : new Utf16Buffer(name, chars);
+    }
+
+    /**
+     * @return the decoded stream, or null if the input cannot be represented compactly
+     */
+    static MappedCharStream decode(ByteBuffer bytes, String name) {
+        int limit = bytes.limit();
+        // the first pass counts the chars and finds out the narrowest representation
+        int length = 0;
+        boolean latin1 = true;
+        for (int i = 0; i < limit; i++) {
+            int b = bytes.get(i) & 0xFF;
+            if (b >= 0xF0) {
+                return null;
+            }
+            if ((b & 0xC0) != 0x80) {
+                length++;
+                // a lead byte above 0xC3 encodes a char above U+00FF
+                if (b > 0xC3) {
+                    latin1 = false;
+                }
+            }
+        }
+        return latin1 ? decodeLatin1(bytes, length, name) : decodeUtf16(bytes, length, name);
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i > 0) {
+            int offset = position + i - 1;
+            return (offset < size) ? charAt(offset) : IntStream.EOF;
+        }
+        if (i < 0) {
+            int offset = position + i;
+            return (offset >= 0) ? charAt(offset) : IntStream.EOF;
+        }
+        return 0;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return (name == null || name.isEmpty()) ? UNKNOWN_SOURCE_NAME : name;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.min(interval.a, size);
+        int end = Math.min(interval.b + 1, size);
+        return (start < end) ? text(start, end) : "";
+    }
+
+    @Override
+    public String toString() {
+        return text(0, size);
+    }
+
+    protected abstract int charAt(int index);
+
+    protected abstract String text(int start, int end);
+
+    /* Private Methods */
+
+    private static MappedCharStream decodeLatin1(ByteBuffer bytes, int length, String name) {
+        byte[] chars = new byte[length];
+        int limit = bytes.limit();
+        int j = 0;
+        for (int i = 0; i < limit; i++) {
+            int b = bytes.get(i) & 0xFF;
+            if (b < 0x80) {
+                chars[j++] = (byte) b;
+            } else if (b >= 0xC2 && i + 1 < limit && isContinuation(bytes.get(i + 1))) {
+                chars[j++] = (byte) (((b & 0x1F) << 6) | (bytes.get(++i) & 0x3F));
+            } else {
+                return null;
+            }
+        }
+        return new Latin1(name, chars);
+    }
+
+    private static MappedCharStream decodeUtf16(ByteBuffer bytes, int length, String name) {
+        char[] chars = new char[length];
+        int limit = bytes.limit();
+        int j = 0;
+        for (int i = 0; i < limit; i++) {
+            int b = bytes.get(i) & 0xFF;
+            if (b < 0x80) {
+                chars[j++] = (char) b;
+            } else if (b >= 0xC2 && b < 0xE0 && i + 1 < limit && isContinuation(bytes.get(i + 1))) {
+                chars[j++] = (char) (((b & 0x1F) << 6) | (bytes.get(++i) & 0x3F));
+            } else if (b >= 0xE0 && i + 2 < limit && isContinuation(bytes.get(i + 1)) && isContinuation(bytes.get(i + 2))) {
+                int c = ((b & 0x0F) << 12) | ((bytes.get(i + 1) & 0x3F) << 6) | (bytes.get(i + 2) & 0x3F);
+                // overlong encodings and surrogates are malformed
+                if (c < 0x800 || Character.isSurrogate((char) c)) {
+                    return null;
+                }
+                chars[j++] = (char) c;
+                i += 2;
+            } else {
+                return null;
+            }
+        }
+        return new Utf16(name, chars);
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /* End Private Methods */
+
+    private static final class Latin1 extends MappedCharStream {
+        private final byte[] chars;
+
+        private Latin1(String name, byte[] chars) {
+            super(name, chars.length);
+            this.chars = chars;
+        }
+
+        @Override
+        protected int charAt(int index) {
+            return chars[index] & 0xFF;
+        }
+
+        @Override
+        protected String text(int start, int end) {
+            return new String(chars, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static final class Utf16 extends MappedCharStream {
+        private final char[] chars;
+
+        private Utf16(String name, char[] chars) {
+            super(name, chars.length);
+            this.chars = chars;
+        }
+
+        @Override
+        protected int charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        protected String text(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+    }
+
+    private static final class Latin1Buffer extends MappedCharStream {
+        private final ByteBuffer chars;
+
+        private Latin1Buffer(String name, ByteBuffer chars) {
+            super(name, chars.limit());
+            this.chars = chars;
+        }
+
+        @Override
+        protected int charAt(int index) {
+            return chars.get(index) & 0xFF;
+        }
+
+        @Override
+        protected String text(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            chars.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static final class Utf16Buffer extends MappedCharStream {
+        private final ByteBuffer chars;
+
+        private Utf16Buffer(String name, ByteBuffer chars) {
+            super(name, chars.limit() / 2);
+            this.chars = chars;
+        }
+
+        @Override
+        protected int charAt(int index) {
+            return chars.getChar(index * 2);
+        }
+
+        @Override
+        protected String text(int start, int end) {
+            char[] text = new char[end - start];
+            chars.asCharBuffer().get(start, text);
+            return new String(text);
+        }
+    }
+
+}
@@ -9,19 +9,22 @@ import raylras.zen.model.type.AnyType;
 import raylras.zen.model.type.SubtypeResult;
 import raylras.zen.model.type.Type;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 public class Operators {
     public static List<OperatorFunctionSymbol> find(Type type, CompilationEnvironment env, Operator operator) {
-        return Symbols.getMember(type, OperatorFunctionSymbol.class, env, it -> it.getOperator() == operator);
+        return env.getOperators(type, operator);
     }
 
     public static List<OperatorFunctionSymbol> find(Type type, CompilationEnvironment env, Operator... operators) {
-        Set<Operator> candidates = Set.of(operators);
-        return Symbols.getMember(type, OperatorFunctionSymbol.class, env, it -> candidates.contains(it.getOperator()));
+        List<OperatorFunctionSymbol> result = new ArrayList<>();
+        for (Operator operator : operators) {
+            result.addAll(env.getOperators(type, operator));
+        }
+        return result;
     }
 
     public static Type getBinaryOperatorResult(Type type, Operator operator, CompilationEnvironment env, Type rightType) {
@@ -0,0 +1,124 @@
+package raylras.zen.util;
+
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.symbol.Executable;
+import raylras.zen.model.symbol.ParameterSymbol;
+import raylras.zen.model.type.SubtypeResult;
+import raylras.zen.model.type.Type;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The overloads of an executable name, grouped by the number of arguments they accept.
+ * <p>
+ * The candidates that cannot accept the arguments are rejected before any type is tested,
+ * and the resolved calls are cached by the types of their arguments.
+ */
+public final class Overloads {
+
+    private static final int MAX_CACHED_CALLS = 256;
+
+    private final List<Executable> executables;
+    private final int[] minArities;
+    private final int[] maxArities;
+    private final Map<Integer, List<Executable>> executablesByArity = new ConcurrentHashMap<>();
+    private final Map<List<Type>, Optional<Executable>> bestMatches = new ConcurrentHashMap<>();
+    private final Map<List<Type>, Optional<Type>> nextArgumentTypes = new ConcurrentHashMap<>();
+
+    public Overloads(List<Executable> executables) {
+        this.executables = List.copyOf(executables);
+        this.minArities = new int[this.executables.size()];
+        this.maxArities = new int[this.executables.size()];
+        for (int i = 0; i < this.executables.size(); i++) {
+            Executable executable = this.executables.get(i);
+            minArities[i] = Executables.getMinArity(executable);
+            maxArities[i] = Executables.getMaxArity(executable);
+        }
+    }
+
+    public List<Executable> getExecutables() {
+        return executables;
+    }
+
+    /**
+     * @return the executables accepting the number of arguments, in the order of declaration
+     */
+    public List<Executable> getExecutables(int arity) {
+        List<Executable> result = executablesByArity.get(arity);
+        if (result == null) {
+            List<Executable> accepted = new ArrayList<>();
+            for (int i = 0; i < executables.size(); i++) {
+                if (minArities[i] <= arity && arity <= maxArities[i]) {
+                    accepted.add(executables.get(i));
+                }
+            }
+            result = List.copyOf(accepted);
+            executablesByArity.putIfAbsent(arity, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the best matching executable, the first one if none of them matches, or null if there are no executables
+     */
+    public Executable findBestMatch(List<Type> argumentTypes, CompilationEnvironment env) {
+        if (executables.isEmpty()) {
+            return null;
+        }
+        List<Type> key = List.copyOf(argumentTypes);
+        Optional<Executable> cached = bestMatches.get(key);
+        if (cached == null) {
+            Executable found = null;
+            SubtypeResult foundMatchingResult = SubtypeResult.MISMATCH;
+            for (Executable executable : getExecutables(argumentTypes.size())) {
+                SubtypeResult matchingResult = Executables.matchArguments(executable, argumentTypes, env);
+                if (matchingResult.priority < foundMatchingResult.priority) {
+                    found = executable;
+                    foundMatchingResult = matchingResult;
+                }
+            }
+            cached = Optional.of(found != null ? found : executables.get(0));
+            cache(bestMatches, key, cached);
+        }
+        return cached.get();
+    }
+
+    /**
+     * @return the type of the parameter following the arguments in the best matching executable, or null if there is none
+     */
+    public Type predictNextArgumentType(List<Type> argumentTypes, CompilationEnvironment env) {
+        List<Type> key = List.copyOf(argumentTypes);
+        Optional<Type> cached = nextArgumentTypes.get(key);
+        if (cached == null) {
+            Type found = null;
+            SubtypeResult foundMatchingResult = SubtypeResult.MISMATCH;
+            for (int i = 0; i < executables.size(); i++) {
+                // there must be a parameter left for the next argument
+                if (argumentTypes.size() >= executables.get(i).getParameterList().size()) {
+                    continue;
+                }
+                List<ParameterSymbol> parameterList = executables.get(i).getParameterList();
+                SubtypeResult matchingResult = SubtypeResult.SELF;
+                for (int j = 0; j < argumentTypes.size() && matchingResult.matched(); j++) {
+                    matchingResult = SubtypeResult.higher(matchingResult, argumentTypes.get(j).testSubtypeOf(parameterList.get(j).getType(), env));
+                }
+                if (matchingResult.priority < foundMatchingResult.priority) {
+                    found = parameterList.get(argumentTypes.size()).getType();
+                    foundMatchingResult = matchingResult;
+                }
+            }
+            cached = Optional.ofNullable(found);
+            cache(nextArgumentTypes, key, cached);
+        }
+        return cached.orElse(null);
+    }
+
+    private static <V> void cache(Map<List<Type>, V> cache, List<Type> key, V value) {
+        if (cache.size() >= MAX_CACHED_CALLS) {
+            cache.clear();
+        }
+        cache.putIfAbsent(key, value);
+    }
+
+}
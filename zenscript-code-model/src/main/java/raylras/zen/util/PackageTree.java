@@ -1,21 +1,22 @@
 package raylras.zen.util;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * A trie of qualified names, whose nodes are the path segments.
+ * <p>
+ * The sub trees are kept sorted, so completing a prefix only visits the matching nodes.
+ * The tree can be updated while being read, but the writers must not run concurrently.
+ */
 public class PackageTree<V> {
-    private final Map<String, PackageTree<V>> subTrees = new HashMap<>();
-    private V element;
+    private final ConcurrentNavigableMap<String, PackageTree<V>> subTrees = new ConcurrentSkipListMap<>();
+    private volatile V element;
     private final String delimiter;
-    private final Pattern delimiterRegex;
 
     public PackageTree(String delimiter) {
         this.delimiter = delimiter;
-        this.delimiterRegex = Pattern.compile(delimiter, Pattern.LITERAL);
     }
 
     public static <V> PackageTree<V> of(String delimiter, Map<String, V> map) {
@@ -26,13 +27,46 @@ public class PackageTree<V> {
 
     public void put(String path, V value) {
         PackageTree<V> leaf = this;
-        Function<String, PackageTree<V>> treeCreator = it -> new PackageTree<>(delimiter);
-        for (String s : delimiterRegex.split(path)) {
-            leaf = leaf.subTrees.computeIfAbsent(s, treeCreator);
+        for (String s : split(path)) {
+            // the same segments appear in many qualified names
+            leaf = leaf.subTrees.computeIfAbsent(s.intern(), it -> new PackageTree<>(delimiter));
         }
         leaf.element = value;
     }
 
+    /**
+     * Removes the element of the path if it is the given value, and the nodes left empty by that.
+     */
+    public void remove(String path, V value) {
+        List<String> segments = split(path);
+        List<PackageTree<V>> nodes = new ArrayList<>(segments.size() + 1);
+        PackageTree<V> node = this;
+        nodes.add(node);
+        for (String s : segments) {
+            node = node.subTrees.get(s);
+            if (node == null) {
+                return;
+            }
+            nodes.add(node);
+        }
+        if (node.element != value) {
+            return;
+        }
+        node.element = null;
+        for (int i = segments.size(); i > 0; i--) {
+            PackageTree<V> current = nodes.get(i);
+            if (current.hasElement() || !current.isEmpty()) {
+                break;
+            }
+            nodes.get(i - 1).subTrees.remove(segments.get(i - 1), current);
+        }
+    }
+
+    public void clear() {
+        subTrees.clear();
+        element = null;
+    }
+
     public V getElement() {
         return element;
     }
@@ -42,7 +76,7 @@ public class PackageTree<V> {
     }
 
     public Map<String, PackageTree<V>> getSubTrees() {
-        return subTrees;
+        return Collections.unmodifiableMap(subTrees);
     }
 
     public boolean isEmpty() {
@@ -51,10 +85,10 @@ public class PackageTree<V> {
 
     public PackageTree<V> get(String path) {
         PackageTree<V> node = this;
-        for (String s : delimiterRegex.split(path)) {
+        for (String s : split(path)) {
             node = node.subTrees.get(s);
             if (node == null) {
-                return PackageTree.of(delimiter, Collections.emptyMap());
+                return new PackageTree<>(delimiter);
             }
         }
         return node;
@@ -63,21 +97,26 @@ public class PackageTree<V> {
     public Map<String, PackageTree<V>> complete(String text) {
         String toComplete;
         int lastDelimiterPos = text.lastIndexOf(delimiter);
-        Map<String, PackageTree<V>> members;
+        PackageTree<V> parent;
         if (lastDelimiterPos != -1) {
-            String completed = text.substring(0, lastDelimiterPos);
-            members = this.get(completed).getSubTrees();
-            if (lastDelimiterPos == text.length() - 1) {
-                toComplete = "";
-            } else {
-                toComplete = text.substring(lastDelimiterPos + 1);
-            }
+            parent = this.get(text.substring(0, lastDelimiterPos));
+            toComplete = text.substring(lastDelimiterPos + delimiter.length());
         } else {
-            members = this.getSubTrees();
+            parent = this;
             toComplete = text;
         }
-        return members.entrySet().stream()
-                .filter(it -> it.getKey().startsWith(toComplete))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return Collections.unmodifiableMap(parent.subTrees.subMap(toComplete, true, toComplete + Character.MAX_VALUE, true));
+    }
+
+    private List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = path.indexOf(delimiter, start)) != -1) {
+            segments.add(path.substring(start, end));
+            start = end + delimiter.length();
+        }
+        segments.add(path.substring(start));
+        return segments;
     }
 }
@@ -0,0 +1,8 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.List;
+
+public record ParseResult(TokenTable tokenTable, ParseTree parseTree, List<SyntaxError> syntaxErrors) {
+}
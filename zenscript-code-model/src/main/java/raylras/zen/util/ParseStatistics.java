@@ -0,0 +1,96 @@
+package raylras.zen.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how the two-stage parsing goes, and decides whether the SLL stage is worth trying.
+ * <p>
+ * Each unit has its own statistics, which are also added to the {@link #global()} ones.
+ * A unit whose SLL parsing keeps bailing out, which usually means it has syntax errors,
+ * goes straight to LL, but still tries SLL once in a while in case the errors have been fixed.
+ */
+public class ParseStatistics {
+
+    private static final ParseStatistics GLOBAL = new ParseStatistics();
+
+    private static final int MAX_CONSECUTIVE_BAILOUTS = 3;
+    private static final int SLL_RETRY_INTERVAL = 8;
+
+    private final LongAdder sllAttempts = new LongAdder();
+    private final LongAdder sllBailouts = new LongAdder();
+    private final LongAdder llParses = new LongAdder();
+    private final LongAdder skippedSll = new LongAdder();
+    private final AtomicInteger consecutiveBailouts = new AtomicInteger();
+    private final AtomicInteger skipsSinceLastAttempt = new AtomicInteger();
+
+    public static ParseStatistics global() {
+        return GLOBAL;
+    }
+
+    public boolean shouldTrySll() {
+        if (consecutiveBailouts.get() < MAX_CONSECUTIVE_BAILOUTS) {
+            return true;
+        }
+        if (skipsSinceLastAttempt.incrementAndGet() >= SLL_RETRY_INTERVAL) {
+            skipsSinceLastAttempt.set(0);
+            return true;
+        }
+        return false;
+    }
+
+    public void recordSllSuccess() {
+        sllAttempts.increment();
+        consecutiveBailouts.set(0);
+        if (this != GLOBAL) {
+            GLOBAL.recordSllSuccess();
+        }
+    }
+
+    public void recordSllBailout() {
+        sllAttempts.increment();
+        sllBailouts.increment();
+        consecutiveBailouts.incrementAndGet();
+        if (this != GLOBAL) {
+            GLOBAL.recordSllBailout();
+        }
+    }
+
+    public void recordLlParse(boolean sllSkipped) {
+        llParses.increment();
+        if (sllSkipped) {
+            skippedSll.increment();
+        }
+        if (this != GLOBAL) {
+            GLOBAL.recordLlParse(sllSkipped);
+        }
+    }
+
+    public long getSllAttempts() {
+        return sllAttempts.sum();
+    }
+
+    public long getSllBailouts() {
+        return sllBailouts.sum();
+    }
+
+    public long getLlParses() {
+        return llParses.sum();
+    }
+
+    public long getSkippedSll() {
+        return skippedSll.sum();
+    }
+
+    public double getSllBailoutRate() {
+        long attempts = getSllAttempts();
+        return (attempts == 0) ? 0 : (double) getSllBailouts() / attempts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLL attempts: %d, SLL bail-outs: %d (%.1f%%), LL parses: %d, SLL skipped: %d",
+                getSllAttempts(), getSllBailouts(), getSllBailoutRate() * 100, getLlParses(), getSkippedSll());
+    }
+
+}
@@ -7,6 +7,7 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
@@ -18,7 +19,7 @@ public final class PathUtils {
 
     public static Path toPath(String uri) {
         try {
-            return Paths.get(URI.create(uri)).toRealPath();
+            return toRealPath(Paths.get(URI.create(uri)));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -86,4 +87,24 @@ public final class PathUtils {
         }
     }
 
+    /* Private Methods */
+
+    /**
+     * Resolves the real path of a file that may have been deleted, such as the one of a 'Deleted' event,
+     * through the real path of its nearest existing ancestor.
+     */
+    private static Path toRealPath(Path path) throws IOException {
+        try {
+            return path.toRealPath();
+        } catch (NoSuchFileException e) {
+            Path parent = path.getParent();
+            if (parent == null) {
+                throw e;
+            }
+            return toRealPath(parent).resolve(path.getFileName());
+        }
+    }
+
+    /* End Private Methods */
+
 }
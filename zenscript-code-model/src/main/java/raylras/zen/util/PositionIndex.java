@@ -0,0 +1,186 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds the nodes of a parse tree by position, with a binary search over its terminals followed by a climb through the parents.
+ * <p>
+ * The lookups behave like {@link CSTNodes#getCstStackAtPosition(ParseTree, Position)}: the first terminal containing the position,
+ * or the deepest node around it when the position is between two terminals.
+ * The index is built once per parse, and must be rebuilt whenever the tree is modified.
+ */
+public final class PositionIndex {
+
+    private final ParseTree root;
+    private final TerminalNode[] terminals;
+    private final long[] starts;
+    // the greatest end among the terminals so far, a token spanning lines ends on its first line as in Range.of(Token)
+    private final long[] maxEnds;
+    private final int[] tokenIndexes;
+    private final long rootStart;
+    private final long rootEnd;
+
+    private PositionIndex(ParseTree root, List<TerminalNode> terminalList) {
+        this.root = root;
+        this.terminals = terminalList.toArray(new TerminalNode[0]);
+        this.starts = new long[terminals.length];
+        this.maxEnds = new long[terminals.length];
+        this.tokenIndexes = new int[terminals.length];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < terminals.length; i++) {
+            Token token = terminals[i].getSymbol();
+            int line = token.getLine() - Range.ANTLR_FIRST_LINE;
+            int column = token.getCharPositionInLine();
+            starts[i] = key(line, column);
+            maxEnd = Math.max(maxEnd, key(line, column + token.getText().length()));
+            maxEnds[i] = maxEnd;
+            tokenIndexes[i] = token.getTokenIndex();
+        }
+        Range rootRange = Range.of(root);
+        this.rootStart = key(rootRange.start().line(), rootRange.start().column());
+        this.rootEnd = key(rootRange.end().line(), rootRange.end().column());
+    }
+
+    public static PositionIndex of(ParseTree root) {
+        List<TerminalNode> terminals = new ArrayList<>();
+        if (root != null) {
+            Deque<ParseTree> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                ParseTree node = stack.pop();
+                // the tokens conjured by the error recovery are outside the ranges of their parents
+                if (node instanceof TerminalNode terminal && terminal.getSymbol().getTokenIndex() >= 0) {
+                    terminals.add(terminal);
+                }
+                for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                    stack.push(node.getChild(i));
+                }
+            }
+        }
+        return new PositionIndex(root, terminals);
+    }
+
+    public ParseTree getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the deepest node at the position, or null if the position is outside the tree
+     */
+    public ParseTree getCstAtPosition(Position pos) {
+        long key = key(pos.line(), pos.column());
+        if (root == null || key < rootStart || key > rootEnd) {
+            return null;
+        }
+        int i = firstEndingAtOrAfter(key);
+        if (i == terminals.length) {
+            return root;
+        }
+        if (starts[i] <= key) {
+            return terminals[i];
+        }
+        return (i > 0) ? commonAncestor(terminals[i - 1], terminals[i]) : root;
+    }
+
+    /**
+     * @return the nodes containing the position, from the deepest to the root
+     */
+    public Deque<ParseTree> getCstStackAtPosition(Position pos) {
+        Deque<ParseTree> result = new ArrayDeque<>();
+        ParseTree cst = getCstAtPosition(pos);
+        while (cst != null) {
+            result.addLast(cst);
+            cst = cst.getParent();
+        }
+        return result;
+    }
+
+    /**
+     * @return the terminal of the token preceding the node on the default channel, or null if there is none
+     */
+    public TerminalNode getPrevTerminal(ParseTree node) {
+        int tokenIndex = getStartTokenIndex(node);
+        if (tokenIndex < 0) {
+            return null;
+        }
+        // the greatest token index less than the one of the node
+        int low = 0;
+        int high = tokenIndexes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokenIndexes[mid] < tokenIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (low > 0) ? terminals[low - 1] : null;
+    }
+
+    /* Private Methods */
+
+    private int firstEndingAtOrAfter(long key) {
+        int low = 0;
+        int high = maxEnds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnds[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ParseTree commonAncestor(ParseTree a, ParseTree b) {
+        int depthA = depth(a);
+        int depthB = depth(b);
+        while (depthA > depthB) {
+            a = a.getParent();
+            depthA--;
+        }
+        while (depthB > depthA) {
+            b = b.getParent();
+            depthB--;
+        }
+        while (a != b) {
+            a = a.getParent();
+            b = b.getParent();
+        }
+        return a;
+    }
+
+    private static int depth(ParseTree node) {
+        int depth = 0;
+        for (ParseTree current = node.getParent(); current != null; current = current.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static int getStartTokenIndex(ParseTree node) {
+        if (node instanceof TerminalNode terminal) {
+            return terminal.getSymbol().getTokenIndex();
+        }
+        if (node instanceof ParserRuleContext ctx && ctx.getStart() != null) {
+            return ctx.getStart().getTokenIndex();
+        }
+        return -1;
+    }
+
+    private static long key(int line, int column) {
+        return ((long) line << 32) + column;
+    }
+
+    /* End Private Methods */
+
+}
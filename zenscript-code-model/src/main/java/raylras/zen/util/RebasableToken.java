@@ -0,0 +1,54 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * A token that can be moved to a new input after an edit,
+ * so that the parse tree nodes referencing it stay valid without re-lexing.
+ */
+public class RebasableToken extends CommonToken {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final TokenFactory<RebasableToken> FACTORY = new TokenFactory<>() {
+        @Override
+        public RebasableToken create(Pair<TokenSource, CharStream> source, int type, String text, int channel, int start, int stop, int line, int charPositionInLine) {
+            RebasableToken token = new RebasableToken(source, type, channel, start, stop);
+            token.setLine(line);
+            token.setCharPositionInLine(charPositionInLine);
+            if (text != null) {
+                token.setText(text);
+            }
+            return token;
+        }
+
+        @Override
+        public RebasableToken create(int type, String text) {
+            return new RebasableToken(type, text);
+        }
+    };
+
+    public RebasableToken(Pair<TokenSource, CharStream> source, int type, int channel, int start, int stop) {
+        super(source, type, channel, start, stop);
+    }
+
+    public RebasableToken(int type, String text) {
+        super(type, text);
+    }
+
+    /**
+     * Moves this token to the given input, where its text is located at the shifted position.
+     */
+    public void rebase(Pair<TokenSource, CharStream> source, int indexDelta, int lineDelta, int columnDelta) {
+        this.source = source;
+        this.start += indexDelta;
+        this.stop += indexDelta;
+        this.line += lineDelta;
+        this.charPositionInLine += columnDelta;
+    }
+
+}
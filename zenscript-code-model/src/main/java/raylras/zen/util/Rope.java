@@ -0,0 +1,315 @@
+package raylras.zen.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An immutable text buffer backed by a height-balanced tree of string chunks.
+ * <p>
+ * Every node knows its length and the number of line breaks it contains,
+ * so that edits and line/offset conversions cost O(log n) instead of copying the whole text.
+ * Since a rope is never modified, a snapshot can be handed to another thread safely.
+ */
+public final class Rope implements CharSequence {
+
+    private static final int MAX_LEAF_LENGTH = 1024;
+
+    public static final Rope EMPTY = new Rope(Leaf.EMPTY);
+
+    private final Node root;
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    public static Rope of(String text) {
+        return new Rope(build(text, 0, text.length()));
+    }
+
+    public Rope replace(int start, int end, String text) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("Cannot replace [" + start + ", " + end + ") of length " + length());
+        }
+        Node left = slice(root, 0, start);
+        Node right = slice(root, end, root.length());
+        return new Rope(join(join(left, build(text, 0, text.length())), right));
+    }
+
+    public Rope replace(Range range, String text) {
+        return replace(getOffset(range.start()), getOffset(range.end()), text);
+    }
+
+    public Rope insert(int offset, String text) {
+        return replace(offset, offset, text);
+    }
+
+    public Rope delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    public int getLineCount() {
+        return root.lineBreaks() + 1;
+    }
+
+    /**
+     * Returns the offset of the first character of the given line,
+     * or the length of the rope if the line is out of bounds.
+     */
+    public int getLineOffset(int line) {
+        if (line <= 0) {
+            return 0;
+        }
+        if (line > root.lineBreaks()) {
+            return length();
+        }
+        return offsetAfterLineBreak(root, line);
+    }
+
+    /**
+     * Converts a zero-based line/column position to an offset.
+     * Like the LSP, a column beyond the end of the line is clamped to the end of the line.
+     */
+    public int getOffset(Position pos) {
+        int lineStart = getLineOffset(pos.line());
+        int lineEnd = (pos.line() + 1 < getLineCount()) ? getLineOffset(pos.line() + 1) - 1 : length();
+        return Math.min(lineStart + Math.max(pos.column(), 0), lineEnd);
+    }
+
+    public Position getPosition(int offset) {
+        if (offset < 0 || offset > length()) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " out of length " + length());
+        }
+        int line = lineBreaksBefore(root, offset);
+        return Position.of(line, offset - getLineOffset(line));
+    }
+
+    public String substring(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("Cannot get [" + start + ", " + end + ") of length " + length());
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        appendTo(builder, root, start, end);
+        return builder.toString();
+    }
+
+    @Override
+    public int length() {
+        return root.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of length " + length());
+        }
+        Node node = root;
+        while (node instanceof Branch branch) {
+            int leftLength = branch.left.length();
+            if (index < leftLength) {
+                node = branch.left;
+            } else {
+                index -= leftLength;
+                node = branch.right;
+            }
+        }
+        return ((Leaf) node).text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(length());
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node instanceof Branch branch) {
+                stack.push(branch.right);
+                stack.push(branch.left);
+            } else {
+                builder.append(((Leaf) node).text);
+            }
+        }
+        return builder.toString();
+    }
+
+    /* Private Methods */
+
+    private static Node build(String text, int start, int end) {
+        int length = end - start;
+        if (length <= MAX_LEAF_LENGTH) {
+            return (length == 0) ? Leaf.EMPTY : new Leaf(text.substring(start, end));
+        }
+        int mid = start + length / 2;
+        // never split a surrogate pair
+        if (Character.isHighSurrogate(text.charAt(mid - 1))) {
+            mid++;
+        }
+        return new Branch(build(text, start, mid), build(text, mid, end));
+    }
+
+    private static Node slice(Node node, int start, int end) {
+        if (start >= end) {
+            return Leaf.EMPTY;
+        }
+        if (start == 0 && end == node.length()) {
+            return node;
+        }
+        if (node instanceof Branch branch) {
+            int leftLength = branch.left.length();
+            if (end <= leftLength) {
+                return slice(branch.left, start, end);
+            }
+            if (start >= leftLength) {
+                return slice(branch.right, start - leftLength, end - leftLength);
+            }
+            return join(slice(branch.left, start, leftLength), slice(branch.right, 0, end - leftLength));
+        }
+        return new Leaf(((Leaf) node).text.substring(start, end));
+    }
+
+    private static Node join(Node left, Node right) {
+        if (left.length() == 0) {
+            return right;
+        }
+        if (right.length() == 0) {
+            return left;
+        }
+        if (left instanceof Leaf l && right instanceof Leaf r && l.length() + r.length() <= MAX_LEAF_LENGTH) {
+            return new Leaf(l.text + r.text);
+        }
+        int leftHeight = left.height();
+        int rightHeight = right.height();
+        if (leftHeight > rightHeight + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    private static Node balance(Node left, Node right) {
+        int leftHeight = left.height();
+        int rightHeight = right.height();
+        if (leftHeight > rightHeight + 1) {
+            Branch l = (Branch) left;
+            if (l.left.height() >= l.right.height()) {
+                return new Branch(l.left, new Branch(l.right, right));
+            }
+            Branch lr = (Branch) l.right;
+            return new Branch(new Branch(l.left, lr.left), new Branch(lr.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            Branch r = (Branch) right;
+            if (r.right.height() >= r.left.height()) {
+                return new Branch(new Branch(left, r.left), r.right);
+            }
+            Branch rl = (Branch) r.left;
+            return new Branch(new Branch(left, rl.left), new Branch(rl.right, r.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private static int offsetAfterLineBreak(Node node, int lineBreak) {
+        int offset = 0;
+        while (node instanceof Branch branch) {
+            int leftBreaks = branch.left.lineBreaks();
+            if (lineBreak <= leftBreaks) {
+                node = branch.left;
+            } else {
+                lineBreak -= leftBreaks;
+                offset += branch.left.length();
+                node = branch.right;
+            }
+        }
+        String text = ((Leaf) node).text;
+        int index = -1;
+        for (int i = 0; i < lineBreak; i++) {
+            index = text.indexOf('\n', index + 1);
+        }
+        return offset + index + 1;
+    }
+
+    private static int lineBreaksBefore(Node node, int offset) {
+        int lineBreaks = 0;
+        while (node instanceof Branch branch) {
+            int leftLength = branch.left.length();
+            if (offset <= leftLength) {
+                node = branch.left;
+            } else {
+                offset -= leftLength;
+                lineBreaks += branch.left.lineBreaks();
+                node = branch.right;
+            }
+        }
+        return lineBreaks + countLineBreaks(((Leaf) node).text, 0, offset);
+    }
+
+    private static void appendTo(StringBuilder builder, Node node, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (node instanceof Branch branch) {
+            int leftLength = branch.left.length();
+            appendTo(builder, branch.left, start, Math.min(end, leftLength));
+            appendTo(builder, branch.right, Math.max(start - leftLength, 0), end - leftLength);
+        } else {
+            builder.append(((Leaf) node).text, start, end);
+        }
+    }
+
+    private static int countLineBreaks(String text, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /* End Private Methods */
+
+    private sealed interface Node permits Leaf, Branch {
+        int length();
+
+        int lineBreaks();
+
+        int height();
+    }
+
+    private record Leaf(String text, int lineBreaks) implements Node {
+        static final Leaf EMPTY = new Leaf("");
+
+        Leaf(String text) {
+            this(text, countLineBreaks(text, 0, text.length()));
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public int height() {
+            return 0;
+        }
+    }
+
+    private record Branch(Node left, Node right, int length, int lineBreaks, int height) implements Node {
+        Branch(Node left, Node right) {
+            this(left, right,
+                    left.length() + right.length(),
+                    left.lineBreaks() + right.lineBreaks(),
+                    Math.max(left.height(), right.height()) + 1);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.*;
+import raylras.zen.model.parser.ZenScriptLexer;
+
+/**
+ * Filters out the tokens that do not contribute to the declarations,
+ * so that the parser builds only the declaration-level part of the tree.
+ * <p>
+ * Function bodies are reduced to {@code {}}, and the initializers of the variables with a declared type are dropped.
+ * The remaining tokens keep their positions in the source.
+ */
+final class StubTokenSource implements TokenSource {
+
+    private final TokenSource lexer;
+    private Token pending;
+    // parentheses and brackets
+    private int depth;
+    // the depth at which the pending function declaration expects its body, or -1
+    private int bodyDepth = -1;
+    private boolean inVariable;
+    private boolean typed;
+    private int variableDepth;
+
+    StubTokenSource(TokenSource lexer) {
+        this.lexer = lexer;
+    }
+
+    @Override
+    public Token nextToken() {
+        if (pending != null) {
+            Token token = pending;
+            pending = null;
+            return token;
+        }
+        Token token = lexer.nextToken();
+        if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+            return token;
+        }
+        switch (token.getType()) {
+            case ZenScriptLexer.PAREN_OPEN, ZenScriptLexer.BRACK_OPEN -> depth++;
+            case ZenScriptLexer.PAREN_CLOSE, ZenScriptLexer.BRACK_CLOSE -> depth--;
+            case ZenScriptLexer.FUNCTION, ZenScriptLexer.ZEN_CONSTRUCTOR, ZenScriptLexer.EXPAND -> {
+                // a function type of the variable has no body
+                if (bodyDepth < 0 && !(inVariable && typed)) {
+                    bodyDepth = depth;
+                }
+                // 'static function' or 'global function', rather than a function type
+                if (inVariable && !typed) {
+                    inVariable = false;
+                }
+            }
+            case ZenScriptLexer.VAR, ZenScriptLexer.VAL, ZenScriptLexer.GLOBAL, ZenScriptLexer.STATIC -> {
+                inVariable = true;
+                typed = false;
+                variableDepth = depth;
+            }
+            case ZenScriptLexer.AS -> {
+                if (inVariable && depth == variableDepth) {
+                    typed = true;
+                }
+            }
+            case ZenScriptLexer.ASSIGN -> {
+                if (inVariable && typed && depth == variableDepth) {
+                    // the semicolon is consumed along with the initializer
+                    inVariable = false;
+                    bodyDepth = -1;
+                    return skipInitializer();
+                }
+            }
+            case ZenScriptLexer.SEMICOLON -> {
+                if (depth == bodyDepth) {
+                    bodyDepth = -1;
+                }
+                if (inVariable && depth == variableDepth) {
+                    inVariable = false;
+                }
+            }
+            case ZenScriptLexer.BRACE_OPEN -> {
+                if (depth == bodyDepth) {
+                    bodyDepth = -1;
+                    pending = skipBody();
+                }
+            }
+        }
+        return token;
+    }
+
+    @Override
+    public int getLine() {
+        return lexer.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return lexer.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return lexer.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return lexer.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        lexer.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return lexer.getTokenFactory();
+    }
+
+    /* Private Methods */
+
+    /**
+     * Skips to the closing brace of the body, returns the closing brace, or EOF if there is none.
+     */
+    private Token skipBody() {
+        int braces = 1;
+        while (true) {
+            Token token = lexer.nextToken();
+            switch (token.getType()) {
+                case Token.EOF -> {
+                    return token;
+                }
+                case ZenScriptLexer.BRACE_OPEN -> braces++;
+                case ZenScriptLexer.BRACE_CLOSE -> {
+                    if (--braces == 0) {
+                        return token;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips to the semicolon ending the variable declaration, returns the semicolon, or EOF if there is none.
+     */
+    private Token skipInitializer() {
+        int nesting = 0;
+        while (true) {
+            Token token = lexer.nextToken();
+            switch (token.getType()) {
+                case Token.EOF -> {
+                    return token;
+                }
+                case ZenScriptLexer.PAREN_OPEN, ZenScriptLexer.BRACK_OPEN, ZenScriptLexer.BRACE_OPEN -> nesting++;
+                case ZenScriptLexer.PAREN_CLOSE, ZenScriptLexer.BRACK_CLOSE, ZenScriptLexer.BRACE_CLOSE -> nesting--;
+                case ZenScriptLexer.SEMICOLON -> {
+                    if (nesting <= 0) {
+                        return token;
+                    }
+                }
+            }
+        }
+    }
+
+    /* End Private Methods */
+
+}
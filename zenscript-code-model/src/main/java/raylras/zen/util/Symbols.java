@@ -4,7 +4,11 @@ import raylras.zen.model.CompilationEnvironment;
 import raylras.zen.model.SymbolProvider;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.symbol.Executable;
+import raylras.zen.model.type.BuiltinType;
+import raylras.zen.model.type.ClassType;
+import raylras.zen.model.type.MemberTable;
 import raylras.zen.model.type.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
@@ -13,18 +17,45 @@ import java.util.stream.Collectors;
 public class Symbols {
 
     public static <T extends Symbol> List<T> getMembersByName(Type type, String simpleName, Class<T> clazz, CompilationEnvironment env) {
+        MemberTable memberTable = getMemberTable(type);
+        if (memberTable != null) {
+            List<T> result = new ArrayList<>();
+            for (Symbol member : memberTable.getSymbols(simpleName)) {
+                if (clazz.isInstance(member)) {
+                    result.add(clazz.cast(member));
+                }
+            }
+            for (Symbol expand : env.getExpandMembers(type)) {
+                if (clazz.isInstance(expand) && expand.getName().equals(simpleName)) {
+                    result.add(clazz.cast(expand));
+                }
+            }
+            return result;
+        }
         return getMember(type, clazz, env, it -> it.getName().equals(simpleName));
     }
 
+    /**
+     * @return the indexed members of the type, or null if the members of the type are not indexed
+     */
+    public static MemberTable getMemberTable(Type type) {
+        if (type instanceof BuiltinType builtinType) {
+            return builtinType.getMemberTable();
+        }
+        if (type instanceof ClassType classType) {
+            return classType.getMemberTable();
+        }
+        return null;
+    }
+
     public static List<Executable> getExecutableMembersByName(Type type, String simpleName, CompilationEnvironment env) {
-        if (!(type instanceof SymbolProvider symbolProvider)) {
-            return Collections.emptyList();
+        List<Executable> result = new ArrayList<>();
+        for (Symbol member : getMembersByName(type, simpleName, Symbol.class, env)) {
+            if (member instanceof Executable executable) {
+                result.add(executable);
+            }
         }
-        return symbolProvider.withExpands(env).getSymbols().stream()
-                .filter(it -> it.getName().equals(simpleName))
-                .filter(Executable.class::isInstance)
-                .map(Executable.class::cast)
-                .collect(Collectors.toList());
+        return result;
     }
 
     public static <T extends Symbol> List<T> getMember(Type type, Class<T> clazz, CompilationEnvironment env, Predicate<T> filter) {
@@ -0,0 +1,4 @@
+package raylras.zen.util;
+
+public record SyntaxError(Range range, String message) {
+}
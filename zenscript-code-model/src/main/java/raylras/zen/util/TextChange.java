@@ -0,0 +1,27 @@
+package raylras.zen.util;
+
+/**
+ * Describes an edit by character offsets: the text in {@code [start, oldEnd)} of the old source
+ * has been replaced by the text in {@code [start, newEnd)} of the new source.
+ */
+public record TextChange(int start, int oldEnd, int newEnd) {
+
+    public static TextChange of(int start, int oldEnd, String newText) {
+        return new TextChange(start, oldEnd, start + newText.length());
+    }
+
+    public int delta() {
+        return newEnd - oldEnd;
+    }
+
+    /**
+     * Returns a single change covering both this change and the given change that follows it.
+     */
+    public TextChange merge(TextChange next) {
+        int start = Math.min(this.start, next.start);
+        // the end of the covered region, in the offsets between the two changes
+        int end = Math.max(this.newEnd, next.oldEnd);
+        return new TextChange(start, end - this.delta(), end + next.delta());
+    }
+
+}
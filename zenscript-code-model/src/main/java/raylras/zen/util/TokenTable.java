@@ -0,0 +1,297 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable table of the tokens of a unit, packed into a single int array.
+ * <p>
+ * Most of the tokens are whitespaces and comments that no parse tree node references,
+ * keeping them as {@link Token} objects costs far more than the few fields actually needed.
+ * The text of a token is sliced from the source on demand.
+ * Users of {@link TokenStream} can go through {@link #asTokenStream()}.
+ */
+public final class TokenTable {
+
+    private static final int TYPE = 0;
+    private static final int CHANNEL = 1;
+    private static final int START = 2;
+    private static final int STOP = 3;
+    private static final int LINE = 4;
+    private static final int COLUMN = 5;
+    private static final int STRIDE = 6;
+
+    private final int[] data;
+    private final int size;
+    private final CharStream source;
+
+    private TokenTable(int[] data, int size, CharStream source) {
+        this.data = data;
+        this.size = size;
+        this.source = source;
+    }
+
+    /**
+     * Creates a table of all the tokens of the stream, fetching the remaining ones first.
+     */
+    public static TokenTable of(BufferedTokenStream tokenStream) {
+        tokenStream.fill();
+        return of(tokenStream.getTokens(), tokenStream.getTokenSource().getInputStream());
+    }
+
+    public static TokenTable of(List<? extends Token> tokens, CharStream source) {
+        int[] data = new int[tokens.size() * STRIDE];
+        for (int i = 0; i < tokens.size(); i++) {
+            put(data, i, tokens.get(i));
+        }
+        return new TokenTable(data, tokens.size(), source);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharStream getSource() {
+        return source;
+    }
+
+    public int getType(int index) {
+        return field(index, TYPE);
+    }
+
+    public int getChannel(int index) {
+        return field(index, CHANNEL);
+    }
+
+    public int getStartIndex(int index) {
+        return field(index, START);
+    }
+
+    public int getStopIndex(int index) {
+        return field(index, STOP);
+    }
+
+    public int getLine(int index) {
+        return field(index, LINE);
+    }
+
+    public int getCharPositionInLine(int index) {
+        return field(index, COLUMN);
+    }
+
+    public String getText(int index) {
+        if (getType(index) == Token.EOF) {
+            return "<EOF>";
+        }
+        return source.getText(Interval.of(getStartIndex(index), getStopIndex(index)));
+    }
+
+    /**
+     * Creates a token with the fields of the given index, its text is still sliced from the source.
+     */
+    public Token get(int index) {
+        CommonToken token = new CommonToken(new Pair<>(null, source), getType(index), getChannel(index), getStartIndex(index), getStopIndex(index));
+        token.setLine(getLine(index));
+        token.setCharPositionInLine(getCharPositionInLine(index));
+        token.setTokenIndex(index);
+        return token;
+    }
+
+    /**
+     * Same as {@link BufferedTokenStream#getHiddenTokensToRight(int, int)}, but returns an empty list instead of null.
+     */
+    public List<Token> getHiddenTokensToRight(int tokenIndex, int channel) {
+        List<Token> tokens = new ArrayList<>();
+        for (int i = tokenIndex + 1; i < size && getChannel(i) != Token.DEFAULT_CHANNEL; i++) {
+            if (channel == -1 || getChannel(i) == channel) {
+                tokens.add(get(i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns a new table with the tokens from {@code from} to {@code to} inclusive replaced,
+     * and the following tokens shifted by the given deltas.
+     * Only the tokens on the same line as the last replaced token are moved horizontally.
+     */
+    public TokenTable splice(int from, int to, List<? extends Token> tokens, CharStream source, int indexDelta, int lineDelta, int columnDelta) {
+        int newSize = size - (to - from + 1) + tokens.size();
+        int[] newData = new int[newSize * STRIDE];
+        System.arraycopy(data, 0, newData, 0, from * STRIDE);
+        int j = from;
+        for (Token token : tokens) {
+            put(newData, j++, token);
+        }
+        int stopLine = getLine(to);
+        for (int i = to + 1; i < size; i++, j++) {
+            int oldOffset = i * STRIDE;
+            int newOffset = j * STRIDE;
+            int line = data[oldOffset + LINE];
+            newData[newOffset + TYPE] = data[oldOffset + TYPE];
+            newData[newOffset + CHANNEL] = data[oldOffset + CHANNEL];
+            newData[newOffset + START] = data[oldOffset + START] + indexDelta;
+            newData[newOffset + STOP] = data[oldOffset + STOP] + indexDelta;
+            newData[newOffset + LINE] = line + lineDelta;
+            newData[newOffset + COLUMN] = data[oldOffset + COLUMN] + ((line == stopLine) ? columnDelta : 0);
+        }
+        return new TokenTable(newData, newSize, source);
+    }
+
+    /**
+     * Returns a new stream over this table, filtered to the default channel like {@link CommonTokenStream}.
+     */
+    public TokenStream asTokenStream() {
+        return new TableTokenStream();
+    }
+
+    /* Private Methods */
+
+    private int field(int index, int field) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("token index " + index + " out of range 0.." + (size - 1));
+        }
+        return data[index * STRIDE + field];
+    }
+
+    private static void put(int[] data, int index, Token token) {
+        int offset = index * STRIDE;
+        data[offset + TYPE] = token.getType();
+        data[offset + CHANNEL] = token.getChannel();
+        data[offset + START] = token.getStartIndex();
+        data[offset + STOP] = token.getStopIndex();
+        data[offset + LINE] = token.getLine();
+        data[offset + COLUMN] = token.getCharPositionInLine();
+    }
+
+    /* End Private Methods */
+
+    private final class TableTokenStream implements TokenStream {
+        private int position = nextOnChannel(0);
+
+        @Override
+        public Token LT(int k) {
+            if (k == 0) {
+                return null;
+            }
+            int i = position;
+            if (k > 0) {
+                for (int n = 1; n < k; n++) {
+                    i = nextOnChannel(i + 1);
+                }
+            } else {
+                for (int n = 0; n < -k; n++) {
+                    i = previousOnChannel(i - 1);
+                    if (i < 0) {
+                        return null;
+                    }
+                }
+            }
+            return get(i);
+        }
+
+        @Override
+        public Token get(int index) {
+            return TokenTable.this.get(index);
+        }
+
+        @Override
+        public TokenSource getTokenSource() {
+            // the table is detached from the lexer it was created by
+            return null;
+        }
+
+        @Override
+        public String getText(Interval interval) {
+            int start = Math.max(interval.a, 0);
+            int stop = Math.min(interval.b, size - 1);
+            StringBuilder builder = new StringBuilder();
+            for (int i = start; i <= stop && getType(i) != Token.EOF; i++) {
+                builder.append(TokenTable.this.getText(i));
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String getText() {
+            return getText(Interval.of(0, size - 1));
+        }
+
+        @Override
+        public String getText(RuleContext ctx) {
+            return getText(ctx.getSourceInterval());
+        }
+
+        @Override
+        public String getText(Token start, Token stop) {
+            if (start == null || stop == null) {
+                return "";
+            }
+            return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+        }
+
+        @Override
+        public void consume() {
+            if (LA(1) == Token.EOF) {
+                throw new IllegalStateException("cannot consume EOF");
+            }
+            position = nextOnChannel(position + 1);
+        }
+
+        @Override
+        public int LA(int i) {
+            Token token = LT(i);
+            return (token != null) ? token.getType() : Token.INVALID_TYPE;
+        }
+
+        @Override
+        public int mark() {
+            return 0;
+        }
+
+        @Override
+        public void release(int marker) {
+        }
+
+        @Override
+        public int index() {
+            return position;
+        }
+
+        @Override
+        public void seek(int index) {
+            position = nextOnChannel(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String getSourceName() {
+            return source.getSourceName();
+        }
+
+        private int nextOnChannel(int index) {
+            int i = Math.min(index, size - 1);
+            while (i < size - 1 && getChannel(i) != Token.DEFAULT_CHANNEL && getType(i) != Token.EOF) {
+                i++;
+            }
+            return i;
+        }
+
+        private int previousOnChannel(int index) {
+            int i = index;
+            while (i >= 0 && getChannel(i) != Token.DEFAULT_CHANNEL) {
+                i--;
+            }
+            return i;
+        }
+    }
+
+}
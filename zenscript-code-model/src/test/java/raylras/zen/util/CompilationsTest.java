@@ -0,0 +1,69 @@
+package raylras.zen.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.index.StubIndex;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class CompilationsTest {
+
+    static final String DZS = """
+            import crafttweaker.item.IItemStack;
+            zenClass IRecipeManager {
+                function addShaped(output as IItemStack, ingredients as IItemStack[][]) as void;
+                function remove(output as IItemStack) as void;
+                static function helper() as void;
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+    String userHome;
+
+    // the generated declarations of an env are located under the home directory
+    @BeforeEach
+    void setUp() {
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", tempDir.resolve("home").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setProperty("user.home", userHome);
+    }
+
+    @Test
+    void loadEnvWithCorruptStubIndex() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("scripts"));
+        Files.writeString(root.resolve("test.zs"), "var a = 1;");
+        CompilationEnvironment env = new CompilationEnvironment(root);
+        Path dzs = Files.createDirectories(env.getGeneratedRoot().resolve("crafttweaker").resolve("recipes")).resolve("IRecipeManager.dzs");
+        Files.writeString(dzs, DZS);
+        Compilations.loadEnv(env);
+        Path indexPath = StubIndex.getIndexPath(env);
+        long indexSize = Files.size(indexPath);
+
+        // cuts the stub tokens of the entry short
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            channel.truncate(indexSize - Integer.BYTES);
+        }
+        CompilationEnvironment reloaded = new CompilationEnvironment(root);
+        Compilations.loadEnv(reloaded);
+        Assertions.assertEquals(2, reloaded.getUnits().size());
+        Assertions.assertNotNull(reloaded.getClassSymbol("crafttweaker.recipes.IRecipeManager"));
+        // the index is written again under a new name, since the corrupt one is still mapped
+        Path rewrittenPath = StubIndex.getIndexPath(reloaded);
+        Assertions.assertNotEquals(indexPath, rewrittenPath);
+        Assertions.assertEquals(indexSize, Files.size(rewrittenPath));
+    }
+
+}
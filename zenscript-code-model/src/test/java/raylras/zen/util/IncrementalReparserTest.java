@@ -0,0 +1,161 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.Trees;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.model.parser.ZenScriptParser;
+import raylras.zen.model.symbol.Symbol;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class IncrementalReparserTest {
+
+    static final String SOURCE = """
+            import crafttweaker.item.IItemStack;
+
+            function foo(a as int) as int {
+                var b = a + 1;
+                return b;
+            }
+
+            var bar = foo(1); val baz = "baz";
+
+            zenClass Qux {
+                val name as string = "qux";
+            }
+            """;
+
+    @ParameterizedTest
+    @MethodSource("reparse")
+    void reparse(String oldText, String newText, boolean incremental) {
+        System.out.printf("test: replace '%s' with '%s', expected incremental: %s%n", oldText, newText, incremental);
+        int start = SOURCE.indexOf(oldText);
+        String source = SOURCE.substring(0, start) + newText + SOURCE.substring(start + oldText.length());
+        TextChange change = TextChange.of(start, start + oldText.length(), newText);
+
+        CompilationUnit unit = loadUnit(SOURCE);
+        Assertions.assertEquals(incremental, Compilations.reparse(unit, source, change).isPresent());
+        if (incremental) {
+            assertSameUnit(loadUnit(source), unit);
+        }
+    }
+
+    static Stream<Arguments> reparse() {
+        return Stream.of(
+                Arguments.of("a + 1", "a * 2 + 1", true),
+                Arguments.of("var b = a + 1;", "var b = a;\n        var c = b;", true),
+                Arguments.of("return b;", "", true),
+                Arguments.of("\"baz\"", "\"baz\" ~ bar", true),
+                Arguments.of("name", "title", true),
+                // across elements
+                Arguments.of("}\n\nvar bar", "}\nvar bar", false),
+                // splits the element
+                Arguments.of("= foo(1)", "= foo(1); var b", false),
+                // syntax error
+                Arguments.of("a + 1", "a +", false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("generation")
+    void generation(String oldText, String newText, boolean changed) {
+        System.out.printf("test: replace '%s' with '%s', expected generation changed: %s%n", oldText, newText, changed);
+        int start = SOURCE.indexOf(oldText);
+        String source = SOURCE.substring(0, start) + newText + SOURCE.substring(start + oldText.length());
+        TextChange change = TextChange.of(start, start + oldText.length(), newText);
+
+        CompilationUnit unit = loadUnit(SOURCE);
+        long generation = unit.getEnv().getSymbolIndex().getGeneration();
+        Assertions.assertTrue(Compilations.reparse(unit, source, change).isPresent());
+        Assertions.assertEquals(changed, unit.getEnv().getSymbolIndex().getGeneration() != generation);
+    }
+
+    static Stream<Arguments> generation() {
+        return Stream.of(
+                Arguments.of("a + 1", "a * 2 + 1", false),
+                Arguments.of("\"baz\"", "\"baz\" ~ bar", false),
+                // the class is contributed to the env
+                Arguments.of("name", "title", true),
+                // the types of the class are resolved through the imports
+                Arguments.of("IItemStack", "IItemStac", true)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("dependents")
+    void dependents(String oldText, String newText, boolean affected) {
+        System.out.printf("test: replace '%s' with '%s', expected dependent affected: %s%n", oldText, newText, affected);
+        int start = SOURCE.indexOf(oldText);
+        String source = SOURCE.substring(0, start) + newText + SOURCE.substring(start + oldText.length());
+        TextChange change = TextChange.of(start, start + oldText.length(), newText);
+
+        CompilationUnit unit = loadUnit(SOURCE);
+        CompilationUnit dependent = unit.getEnv().createUnit(unit.getEnv().getRoot().resolve("dependent.zs"));
+        Compilations.loadUnit(dependent, "import scripts.test.foo; var x = foo(2);");
+        long typeStamp = dependent.getTypeStamp();
+        Set<CompilationUnit> dependents = Compilations.reparse(unit, source, change).orElseThrow();
+        Assertions.assertEquals(affected, dependents.contains(dependent));
+        Assertions.assertEquals(affected, dependent.getTypeStamp() != typeStamp);
+    }
+
+    static Stream<Arguments> dependents() {
+        return Stream.of(
+                // inside the function body
+                Arguments.of("a + 1", "a * 2 + 1", false),
+                Arguments.of("return b;", "return b * 2;", false),
+                // the signature of the function
+                Arguments.of("as int {", "as string {", true),
+                // the class is contributed to the env
+                Arguments.of("name", "title", true)
+        );
+    }
+
+    static CompilationUnit loadUnit(String source) {
+        CompilationEnvironment env = new CompilationEnvironment(Path.of("project", "scripts").toAbsolutePath());
+        CompilationUnit unit = env.createUnit(env.getRoot().resolve("test.zs"));
+        Compilations.loadUnit(unit, source);
+        return unit;
+    }
+
+    static void assertSameUnit(CompilationUnit expected, CompilationUnit actual) {
+        TokenTable expectedTokens = expected.getTokenTable();
+        TokenTable actualTokens = actual.getTokenTable();
+        Assertions.assertEquals(expectedTokens.size(), actualTokens.size());
+        for (int i = 0; i < expectedTokens.size(); i++) {
+            Assertions.assertEquals(expectedTokens.get(i).toString(), actualTokens.get(i).toString());
+        }
+        assertSameTreeTokens(expected.getParseTree(), actual.getParseTree());
+
+        List<String> ruleNames = List.of(ZenScriptParser.ruleNames);
+        Assertions.assertEquals(Trees.toStringTree(expected.getParseTree(), ruleNames), Trees.toStringTree(actual.getParseTree(), ruleNames));
+
+        List<Symbol> expectedSymbols = expected.getTopLevelSymbols();
+        List<Symbol> actualSymbols = actual.getTopLevelSymbols();
+        Assertions.assertEquals(expectedSymbols.size(), actualSymbols.size());
+        for (int i = 0; i < expectedSymbols.size(); i++) {
+            Assertions.assertEquals(expectedSymbols.get(i).getName(), actualSymbols.get(i).getName());
+        }
+        Assertions.assertEquals(expected.getScopes().size(), actual.getScopes().size());
+        Assertions.assertEquals(expected.getSymbols().size(), actual.getSymbols().size());
+    }
+
+    static void assertSameTreeTokens(ParseTree expected, ParseTree actual) {
+        if (expected instanceof TerminalNode expectedTerminal && actual instanceof TerminalNode actualTerminal) {
+            Assertions.assertEquals(expectedTerminal.getSymbol().toString(), actualTerminal.getSymbol().toString());
+        }
+        Assertions.assertEquals(expected.getChildCount(), actual.getChildCount());
+        for (int i = 0; i < expected.getChildCount(); i++) {
+            assertSameTreeTokens(expected.getChild(i), actual.getChild(i));
+        }
+    }
+
+}
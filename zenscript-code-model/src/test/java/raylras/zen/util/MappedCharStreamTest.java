@@ -0,0 +1,56 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+class MappedCharStreamTest {
+
+    @TempDir
+    static Path tempDir;
+
+    @ParameterizedTest
+    @MethodSource("fromPath")
+    void fromPath(String text, boolean compact) throws IOException {
+        System.out.printf("test: '%s', expected compact: %s%n", text, compact);
+        Path path = Files.writeString(tempDir.resolve("test.zs"), text, StandardCharsets.UTF_8);
+        CharStream actual = MappedCharStream.fromPath(path);
+        CharStream expected = CharStreams.fromPath(path, StandardCharsets.UTF_8);
+
+        Assertions.assertEquals(compact, actual instanceof MappedCharStream);
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.getSourceName(), actual.getSourceName());
+        Assertions.assertEquals(expected.getText(Interval.of(0, expected.size())), actual.getText(Interval.of(0, actual.size())));
+        for (int i = 0; i <= expected.size(); i++) {
+            Assertions.assertEquals(expected.LA(1), actual.LA(1));
+            Assertions.assertEquals(expected.LA(-1), actual.LA(-1));
+            if (expected.LA(1) != IntStream.EOF) {
+                expected.consume();
+                actual.consume();
+            }
+        }
+    }
+
+    static Stream<Arguments> fromPath() {
+        return Stream.of(
+                Arguments.of("", true),
+                Arguments.of("var foo = \"bar\";", true),
+                Arguments.of("var café = \"über\";", true),
+                Arguments.of("﻿var foo = \"中文\";", true),
+                Arguments.of("var foo = \"😀\";", false)
+        );
+    }
+
+}
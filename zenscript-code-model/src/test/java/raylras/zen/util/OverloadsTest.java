@@ -0,0 +1,53 @@
+package raylras.zen.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.symbol.Executable;
+import raylras.zen.model.symbol.SymbolFactory;
+import raylras.zen.model.type.IntType;
+import raylras.zen.model.type.StringType;
+import raylras.zen.model.type.VoidType;
+
+import java.nio.file.Path;
+import java.util.List;
+
+class OverloadsTest {
+
+    private static final CompilationEnvironment env = new CompilationEnvironment(Path.of("project", "scripts").toAbsolutePath());
+
+    private static final Executable ofInt = SymbolFactory.createFunctionSymbol("foo", VoidType.INSTANCE, List.of(
+            SymbolFactory.createParameterSymbol("a", IntType.INSTANCE, false, false)
+    ));
+    private static final Executable ofString = SymbolFactory.createFunctionSymbol("foo", VoidType.INSTANCE, List.of(
+            SymbolFactory.createParameterSymbol("a", StringType.INSTANCE, false, false)
+    ));
+    private static final Executable ofIntOptional = SymbolFactory.createFunctionSymbol("foo", VoidType.INSTANCE, List.of(
+            SymbolFactory.createParameterSymbol("a", IntType.INSTANCE, false, false),
+            SymbolFactory.createParameterSymbol("b", IntType.INSTANCE, true, false)
+    ));
+    private static final Executable ofVararg = SymbolFactory.createFunctionSymbol("foo", VoidType.INSTANCE, List.of(
+            SymbolFactory.createParameterSymbol("a", StringType.INSTANCE, false, false),
+            SymbolFactory.createParameterSymbol("b", IntType.INSTANCE, false, true)
+    ));
+
+    @Test
+    void getExecutables() {
+        Overloads overloads = new Overloads(List.of(ofInt, ofString, ofIntOptional, ofVararg));
+        Assertions.assertEquals(List.of(), overloads.getExecutables(0));
+        Assertions.assertEquals(List.of(ofInt, ofString, ofIntOptional, ofVararg), overloads.getExecutables(1));
+        Assertions.assertEquals(List.of(ofIntOptional, ofVararg), overloads.getExecutables(2));
+        Assertions.assertEquals(List.of(ofVararg), overloads.getExecutables(5));
+    }
+
+    @Test
+    void findBestMatch() {
+        Overloads overloads = new Overloads(List.of(ofInt, ofString, ofIntOptional, ofVararg));
+        Assertions.assertSame(ofString, overloads.findBestMatch(List.of(StringType.INSTANCE), env));
+        Assertions.assertSame(ofIntOptional, overloads.findBestMatch(List.of(IntType.INSTANCE, IntType.INSTANCE), env));
+        Assertions.assertSame(ofVararg, overloads.findBestMatch(List.of(StringType.INSTANCE, IntType.INSTANCE, IntType.INSTANCE), env));
+        // none of them matches
+        Assertions.assertSame(ofInt, overloads.findBestMatch(List.of(), env));
+    }
+
+}
@@ -0,0 +1,34 @@
+package raylras.zen.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class PackageTreeTest {
+
+    @Test
+    void complete() {
+        PackageTree<String> tree = new PackageTree<>(".");
+        tree.put("crafttweaker.item.IItemStack", "IItemStack");
+        tree.put("crafttweaker.item.IIngredient", "IIngredient");
+        tree.put("crafttweaker.liquid.ILiquidStack", "ILiquidStack");
+        Assertions.assertEquals(List.of("IIngredient", "IItemStack"), List.copyOf(tree.complete("crafttweaker.item.II").keySet()));
+        Assertions.assertEquals(List.of("item", "liquid"), List.copyOf(tree.complete("crafttweaker.").keySet()));
+        Assertions.assertTrue(tree.complete("mods.").isEmpty());
+    }
+
+    @Test
+    void remove() {
+        PackageTree<String> tree = new PackageTree<>(".");
+        tree.put("a.b.C", "C");
+        tree.put("a.D", "D");
+        tree.remove("a.b.C", "other");
+        Assertions.assertEquals("C", tree.get("a.b.C").getElement());
+        tree.remove("a.b.C", "C");
+        Assertions.assertEquals(List.of("D"), List.copyOf(tree.get("a").getSubTrees().keySet()));
+        tree.remove("a.D", "D");
+        Assertions.assertTrue(tree.isEmpty());
+    }
+
+}
@@ -0,0 +1,78 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import raylras.zen.model.parser.ZenScriptLexer;
+import raylras.zen.model.parser.ZenScriptParser;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class PositionIndexTest {
+
+    static final String SOURCE = """
+            var foo = bar.baz; val qux;
+            function add(a as int,  b as int) as int {
+                // comment
+                return a + b;
+            }
+            val broken = (1 + ;
+            """;
+
+    static final TokenStream tokenStream = new CommonTokenStream(new ZenScriptLexer(CharStreams.fromString(SOURCE)));
+    static final ParseTree root = parse(tokenStream);
+    static final PositionIndex index = PositionIndex.of(root);
+
+    @ParameterizedTest
+    @MethodSource("getCstAtPosition")
+    void getCstAtPosition(String expected, int line, int column) {
+        Assertions.assertEquals(expected, getText(index.getCstAtPosition(Position.of(line, column))));
+    }
+
+    static Stream<Arguments> getCstAtPosition() {
+        return Stream.of(
+                Arguments.of(null, -1, -1),
+                Arguments.of("var", 0, 0),
+                Arguments.of("bar", 0, 13),
+                Arguments.of(".", 0, 14),
+                Arguments.of("baz", 0, 15),
+                Arguments.of(";", 0, 18),
+                Arguments.of(",", 1, 22),
+                Arguments.of("aasint,basint", 1, 23)
+        );
+    }
+
+    @Test
+    void sameAsSearchingFromRoot() {
+        List<String> lines = SOURCE.lines().toList();
+        for (int line = -1; line <= lines.size(); line++) {
+            int length = (line >= 0 && line < lines.size()) ? lines.get(line).length() : 0;
+            for (int column = -1; column <= length + 1; column++) {
+                Position pos = Position.of(line, column);
+                Assertions.assertEquals(List.copyOf(CSTNodes.getCstStackAtPosition(root, pos)), List.copyOf(index.getCstStackAtPosition(pos)), pos.toString());
+                ParseTree cst = index.getCstAtPosition(pos);
+                if (cst != null) {
+                    Assertions.assertSame(CSTNodes.getPrevTerminal(tokenStream, cst), index.getPrevTerminal(cst), pos.toString());
+                }
+            }
+        }
+    }
+
+    private static ParseTree parse(TokenStream tokenStream) {
+        ZenScriptParser parser = new ZenScriptParser(tokenStream);
+        parser.removeErrorListeners();
+        return parser.compilationUnit();
+    }
+
+    private static String getText(ParseTree node) {
+        return node == null ? null : node.getText();
+    }
+
+}
@@ -0,0 +1,86 @@
+package raylras.zen.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+class RopeTest {
+
+    @ParameterizedTest
+    @MethodSource("getOffset")
+    void getOffset(String text, Position pos, int expected) {
+        System.out.printf("test: offset of %s, expected: %s%n", pos, expected);
+        Assertions.assertEquals(expected, Rope.of(text).getOffset(pos));
+    }
+
+    static Stream<Arguments> getOffset() {
+        String text = "foo\nbar\r\n\nbaz";
+        return Stream.of(
+                Arguments.of(text, Position.of(0, 0), 0),
+                Arguments.of(text, Position.of(0, 3), 3),
+                Arguments.of(text, Position.of(1, 1), 5),
+                Arguments.of(text, Position.of(2, 0), 9),
+                Arguments.of(text, Position.of(3, 3), 13),
+                // column beyond the end of line
+                Arguments.of(text, Position.of(0, 99), 3),
+                Arguments.of(text, Position.of(2, 5), 9),
+                Arguments.of(text, Position.of(3, 99), 13),
+                // line beyond the end of text
+                Arguments.of(text, Position.of(9, 0), 13)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("replace")
+    void replace(String text, Range range, String newText, String expected) {
+        System.out.printf("test: replace %s with '%s', expected: '%s'%n", range, newText, expected);
+        Assertions.assertEquals(expected, Rope.of(text).replace(range, newText).toString());
+    }
+
+    static Stream<Arguments> replace() {
+        return Stream.of(
+                Arguments.of("", Range.of(0, 0, 0, 0), "foo", "foo"),
+                Arguments.of("foo", Range.of(0, 3, 0, 3), "\nbar", "foo\nbar"),
+                Arguments.of("foo\nbar", Range.of(0, 1, 1, 2), "", "fr"),
+                Arguments.of("foo\nbar", Range.of(1, 0, 1, 3), "baz", "foo\nbaz"),
+                Arguments.of("foo\nbar", Range.of(0, 0, 1, 3), "", "")
+        );
+    }
+
+    @Test
+    void randomEdits() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder();
+        Rope rope = Rope.EMPTY;
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = start + random.nextInt(Math.min(expected.length() - start, 64) + 1);
+            String text = randomText(random, random.nextInt(4) == 0 ? 3000 : 40);
+            expected.replace(start, end, text);
+            rope = rope.replace(start, end, text);
+        }
+        Assertions.assertEquals(expected.toString(), rope.toString());
+        Assertions.assertEquals(expected.length(), rope.length());
+        for (int i = 0; i < 200; i++) {
+            int offset = random.nextInt(expected.length() + 1);
+            Position pos = rope.getPosition(offset);
+            Assertions.assertEquals(offset, rope.getOffset(pos));
+            Assertions.assertEquals(expected.substring(0, offset).split("\n", -1).length - 1, pos.line());
+        }
+    }
+
+    private static String randomText(Random random, int maxLength) {
+        int length = random.nextInt(maxLength);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(random.nextInt(8) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+}
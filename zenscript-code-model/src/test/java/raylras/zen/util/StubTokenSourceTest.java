@@ -0,0 +1,43 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class StubTokenSourceTest {
+
+    @ParameterizedTest
+    @MethodSource("lexStubs")
+    void lexStubs(String source, String expected) {
+        CommonTokenStream tokenStream = Compilations.lexStubs(CharStreams.fromString(source));
+        tokenStream.fill();
+        String actual = tokenStream.getTokens().stream()
+                .filter(token -> token.getChannel() == Token.DEFAULT_CHANNEL)
+                .map(Token::getText)
+                .collect(Collectors.joining(" "));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    static Stream<Arguments> lexStubs() {
+        return Stream.of(
+                Arguments.of("function foo(a as int = 1) as int { var b = a; return b; }",
+                        "function foo ( a as int = 1 ) as int { } <EOF>"),
+                Arguments.of("zenClass Foo { val a as int = {x: 1}; var b = 2; zenConstructor() { if (true) { a = 1; } } static function bar() as void; }",
+                        "zenClass Foo { val a as int ; var b = 2 ; zenConstructor ( ) { } static function bar ( ) as void ; } <EOF>"),
+                Arguments.of("$expand int$foo() as int { return this; } global baz as function(int)void = function(x) { print(x); };",
+                        "$expand int $ foo ( ) as int { } global baz as function ( int ) void ; <EOF>"),
+                Arguments.of("global f as function(int)void = function(x) { print(x); }; zenClass Foo { var a as int; }",
+                        "global f as function ( int ) void ; zenClass Foo { var a as int ; } <EOF>"),
+                Arguments.of("foo(function(x) { return x; }); function bar() { ",
+                        "foo ( function ( x ) { } ) ; function bar ( ) { <EOF>")
+        );
+    }
+
+}
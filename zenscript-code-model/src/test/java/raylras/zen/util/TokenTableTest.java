@@ -0,0 +1,75 @@
+package raylras.zen.util;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import raylras.zen.model.parser.ZenScriptLexer;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class TokenTableTest {
+
+    @ParameterizedTest
+    @MethodSource("sources")
+    void of(String source) {
+        CommonTokenStream tokenStream = Compilations.lex(CharStreams.fromString(source));
+        TokenTable table = TokenTable.of(tokenStream);
+
+        List<Token> tokens = tokenStream.getTokens();
+        Assertions.assertEquals(tokens.size(), table.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assertions.assertEquals(tokens.get(i).toString(), table.get(i).toString());
+            Assertions.assertEquals(tokens.get(i).getText(), table.getText(i));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("sources")
+    void asTokenStream(String source) {
+        CommonTokenStream expected = Compilations.lex(CharStreams.fromString(source));
+        TokenStream actual = TokenTable.of(expected).asTokenStream();
+        expected.seek(0);
+
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.getText(), actual.getText());
+        while (true) {
+            Assertions.assertEquals(expected.index(), actual.index());
+            Assertions.assertEquals(String.valueOf(expected.LT(1)), String.valueOf(actual.LT(1)));
+            Assertions.assertEquals(String.valueOf(expected.LT(2)), String.valueOf(actual.LT(2)));
+            Assertions.assertEquals(String.valueOf(expected.LT(-1)), String.valueOf(actual.LT(-1)));
+            if (expected.LA(1) == Token.EOF) {
+                break;
+            }
+            expected.consume();
+            actual.consume();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("sources")
+    void getHiddenTokensToRight(String source) {
+        CommonTokenStream tokenStream = Compilations.lex(CharStreams.fromString(source));
+        TokenTable table = TokenTable.of(tokenStream);
+
+        for (int i = 0; i < table.size(); i++) {
+            List<Token> expected = tokenStream.getHiddenTokensToRight(i, ZenScriptLexer.PREPROCESSOR_CHANNEL);
+            List<Token> actual = table.getHiddenTokensToRight(i, ZenScriptLexer.PREPROCESSOR_CHANNEL);
+            Assertions.assertEquals(String.valueOf(expected), String.valueOf(actual.isEmpty() ? null : actual));
+        }
+    }
+
+    static Stream<String> sources() {
+        return Stream.of(
+                "",
+                "var foo = bar.baz;",
+                "#loader crafttweaker\n#priority 10\n\n// comment\nimport foo.bar;\n",
+                "  /* block */ function foo() {\n    return 1;\n}\n"
+        );
+    }
+
+}
@@ -0,0 +1,141 @@
+package raylras.zen.lsp;
+
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import raylras.zen.lsp.provider.DiagnosticsProvider;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+
+/**
+ * Checks the units in the background and publishes their diagnostics.
+ * <p>
+ * The units are checked in parallel, each one under the read lock of its env.
+ * A check yields as soon as another thread waits for the lock, and is retried later,
+ * so the edits and the requests of the editor never wait for the diagnostics.
+ * Only the edited units and their dependents are scheduled again.
+ */
+public class DiagnosticsScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticsScheduler.class);
+
+    private static final long RETRY_DELAY_MILLIS = Long.getLong("zenscript.diagnostics.retryDelay", 200);
+    // leaves a core for the requests of the editor
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private final Set<CompilationUnit> pendingUnits = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(PARALLELISM, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "zenscript-diagnostics-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    /**
+     * Schedules a check of every script of the env.
+     */
+    public void schedule(CompilationEnvironment env) {
+        schedule(env.getUnits());
+    }
+
+    /**
+     * Schedules a check of the units, the ones already waiting to be checked are not scheduled twice.
+     */
+    public void schedule(Collection<CompilationUnit> units) {
+        for (CompilationUnit unit : units) {
+            schedule(unit, 0);
+        }
+    }
+
+    /**
+     * Schedules a check of a changed unit and of the other units affected by the change.
+     */
+    public void schedule(CompilationUnit unit, Collection<CompilationUnit> dependents) {
+        schedule(unit, 0);
+        schedule(dependents);
+    }
+
+    /**
+     * Clears the diagnostics of a unit that has been removed.
+     */
+    public void clear(CompilationUnit unit) {
+        pendingUnits.remove(unit);
+        publish(unit, List.of());
+    }
+
+    /**
+     * Collects the units to be checked again after the unit is changed,
+     * both before and after the change, since the change may add or remove the names others depend on.
+     *
+     * @return the unit and the units depending on it
+     */
+    public static Set<CompilationUnit> getAffectedUnits(CompilationUnit unit) {
+        Set<CompilationUnit> units = new LinkedHashSet<>();
+        units.add(unit);
+        units.addAll(unit.getEnv().getDependencyGraph().getTransitiveDependents(unit));
+        return units;
+    }
+
+    /* Private Methods */
+
+    private void schedule(CompilationUnit unit, long delayMillis) {
+        if (!unit.isGenerated() && pendingUnits.add(unit)) {
+            executor.schedule(() -> check(unit), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void check(CompilationUnit unit) {
+        // the changes from now on schedule another check
+        if (!pendingUnits.remove(unit)) {
+            return;
+        }
+        CompilationEnvironment env = unit.getEnv();
+        ReadLock readLock = env.readLock();
+        if (env.hasQueuedThreads() || !readLock.tryLock()) {
+            schedule(unit, RETRY_DELAY_MILLIS);
+            return;
+        }
+        List<Diagnostic> diagnostics;
+        long typeStamp;
+        try {
+            if (env.getUnit(unit.getPath()) != unit) {
+                return;
+            }
+            typeStamp = unit.getTypeStamp();
+            diagnostics = DiagnosticsProvider.diagnose(unit, env::hasQueuedThreads);
+        } catch (CancellationException e) {
+            schedule(unit, RETRY_DELAY_MILLIS);
+            return;
+        } catch (Exception e) {
+            logger.error("Failed to diagnose unit: {}", unit, e);
+            return;
+        } finally {
+            readLock.unlock();
+        }
+        // the unit has been changed meanwhile, the newer check publishes instead
+        if (unit.getTypeStamp() == typeStamp) {
+            publish(unit, diagnostics);
+        }
+    }
+
+    private static void publish(CompilationUnit unit, List<Diagnostic> diagnostics) {
+        ZenLanguageService.publishDiagnostics(new PublishDiagnosticsParams(unit.getPath().toUri().toString(), diagnostics));
+    }
+
+    /* End Private Methods */
+
+}
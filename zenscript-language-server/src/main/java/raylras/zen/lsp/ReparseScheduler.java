@@ -0,0 +1,195 @@
+package raylras.zen.lsp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.util.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+
+/**
+ * Reparses the changed documents in the background.
+ * <p>
+ * A burst of changes is coalesced into a single parse of the newest version,
+ * and a parse that becomes stale while running is cancelled instead of being published.
+ * Read requests can wait for the newest version with {@link #awaitParsed(String)}.
+ */
+public class ReparseScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReparseScheduler.class);
+
+    private static final long DEBOUNCE_MILLIS = Long.getLong("zenscript.reparse.debounce", 100);
+
+    private final WorkspaceManager workspaceManager;
+    private final DiagnosticsScheduler diagnosticsScheduler;
+    private final Map<Path, PendingDocument> pendingDocuments = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zenscript-reparse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReparseScheduler(WorkspaceManager workspaceManager, DiagnosticsScheduler diagnosticsScheduler) {
+        this.workspaceManager = workspaceManager;
+        this.diagnosticsScheduler = diagnosticsScheduler;
+    }
+
+    /**
+     * Schedules a reparse of the given version, replacing the one scheduled for an older version.
+     */
+    public void schedule(String uri, int version, TextBuffers.Update update) {
+        PendingDocument document = pendingDocuments.computeIfAbsent(PathUtils.toPath(uri), path -> new PendingDocument(uri));
+        synchronized (document) {
+            document.version = version;
+            document.text = update.buffer();
+            document.change = (document.change != null) ? document.change.merge(update.change()) : update.change();
+            if (document.parsed.isDone()) {
+                document.parsed = new CompletableFuture<>();
+            }
+            if (document.task != null) {
+                document.task.cancel(false);
+            }
+            document.task = executor.schedule(() -> reparse(document), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns a future that completes once the newest version of the document has been parsed.
+     */
+    public CompletableFuture<Void> awaitParsed(String uri) {
+        PendingDocument document = pendingDocuments.get(PathUtils.toPath(uri));
+        if (document == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized (document) {
+            // someone is waiting, there is no point in waiting for more changes
+            if (!document.parsed.isDone() && document.task.cancel(false)) {
+                document.task = executor.schedule(() -> reparse(document), 0, TimeUnit.MILLISECONDS);
+            }
+            return document.parsed;
+        }
+    }
+
+    public void remove(String uri) {
+        PendingDocument document = pendingDocuments.remove(PathUtils.toPath(uri));
+        if (document != null) {
+            synchronized (document) {
+                document.version = -1;
+                if (document.task != null) {
+                    document.task.cancel(false);
+                }
+                document.parsed.complete(null);
+            }
+        }
+    }
+
+    /* Private Methods */
+
+    private void reparse(PendingDocument document) {
+        int version;
+        Rope text;
+        TextChange change;
+        synchronized (document) {
+            if (document.change == null) {
+                return;
+            }
+            version = document.version;
+            text = document.text;
+            change = document.change;
+        }
+        try {
+            Path path = PathUtils.toPath(document.uri);
+            CompilationEnvironment env = workspaceManager.getEnv(document.uri).orElse(null);
+            CompilationUnit unit = (env != null) ? env.getUnit(path) : null;
+            if (unit == null) {
+                synchronized (document) {
+                    if (document.version == version) {
+                        document.published();
+                    }
+                }
+                return;
+            }
+            String source = text.toString();
+            WriteLock writeLock = env.writeLock();
+            writeLock.lock();
+            try {
+                synchronized (document) {
+                    if (document.version != version) {
+                        return;
+                    }
+                    // the unit has been removed meanwhile
+                    if (env.getUnit(path) != unit) {
+                        document.published();
+                        return;
+                    }
+                    Optional<Set<CompilationUnit>> dependents = Compilations.reparse(unit, source, change);
+                    if (dependents.isPresent()) {
+                        diagnosticsScheduler.schedule(unit, dependents.get());
+                        document.published();
+                        return;
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+
+            // The full parse runs without the lock, so the read requests are not blocked meanwhile.
+            ParseResult result = Compilations.parse(unit, source, () -> document.version != version);
+            writeLock.lock();
+            try {
+                synchronized (document) {
+                    if (document.version != version) {
+                        return;
+                    }
+                    // the unit has been removed meanwhile
+                    if (env.getUnit(path) != unit) {
+                        document.published();
+                        return;
+                    }
+                    Set<CompilationUnit> dependents = Compilations.loadUnit(unit, result);
+                    diagnosticsScheduler.schedule(unit, dependents);
+                    document.published();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (CancellationException e) {
+            logger.debug("Dropped the stale parse of {} version {}", document.uri, version);
+        } catch (Exception e) {
+            logger.error("Failed to reparse {} version {}", document.uri, version, e);
+            synchronized (document) {
+                if (document.version == version) {
+                    document.parsed.complete(null);
+                }
+            }
+        }
+    }
+
+    /* End Private Methods */
+
+    private static final class PendingDocument {
+        private final String uri;
+        private volatile int version;
+        private Rope text;
+        // covers all the changes since the unit was last parsed
+        private TextChange change;
+        private ScheduledFuture<?> task;
+        private CompletableFuture<Void> parsed = CompletableFuture.completedFuture(null);
+
+        private PendingDocument(String uri) {
+            this.uri = uri;
+        }
+
+        private void published() {
+            change = null;
+            parsed.complete(null);
+        }
+    }
+
+}
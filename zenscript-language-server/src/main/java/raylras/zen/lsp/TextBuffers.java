@@ -0,0 +1,72 @@
+package raylras.zen.lsp;
+
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import raylras.zen.util.PathUtils;
+import raylras.zen.util.Range;
+import raylras.zen.util.Rope;
+import raylras.zen.util.TextChange;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the text of the documents opened by the client,
+ * kept up to date by applying incremental changes instead of receiving the full text each time.
+ */
+public class TextBuffers {
+
+    private final Map<Path, Rope> buffers = new ConcurrentHashMap<>();
+
+    public Rope open(String uri, String text) {
+        Rope buffer = Rope.of(text);
+        buffers.put(PathUtils.toPath(uri), buffer);
+        return buffer;
+    }
+
+    public Optional<Rope> get(String uri) {
+        return Optional.ofNullable(buffers.get(PathUtils.toPath(uri)));
+    }
+
+    /**
+     * Applies the changes in order, a change without a range replaces the whole document.
+     *
+     * @return the updated buffer and a change covering all the edits,
+     * or empty if there are no changes, or if the document was never opened and the changes are not full replacements
+     */
+    public Optional<Update> change(String uri, List<TextDocumentContentChangeEvent> changes) {
+        Path path = PathUtils.toPath(uri);
+        Rope buffer = buffers.get(path);
+        TextChange covering = null;
+        for (TextDocumentContentChangeEvent change : changes) {
+            TextChange textChange;
+            if (change.getRange() == null) {
+                int oldLength = (buffer != null) ? buffer.length() : 0;
+                textChange = TextChange.of(0, oldLength, change.getText());
+                buffer = Rope.of(change.getText());
+            } else if (buffer != null) {
+                Range range = Range.of(change.getRange());
+                textChange = TextChange.of(buffer.getOffset(range.start()), buffer.getOffset(range.end()), change.getText());
+                buffer = buffer.replace(textChange.start(), textChange.oldEnd(), change.getText());
+            } else {
+                return Optional.empty();
+            }
+            covering = (covering != null) ? covering.merge(textChange) : textChange;
+        }
+        if (buffer == null || covering == null) {
+            return Optional.empty();
+        }
+        buffers.put(path, buffer);
+        return Optional.of(new Update(buffer, covering));
+    }
+
+    public void close(String uri) {
+        buffers.remove(PathUtils.toPath(uri));
+    }
+
+    public record Update(Rope buffer, TextChange change) {
+    }
+
+}
@@ -28,6 +28,11 @@ public class WorkspaceManager {
     private static final Logger logger = LoggerFactory.getLogger(WorkspaceManager.class);
 
     private final Set<Workspace> workspaceSet = new HashSet<>();
+    private final DiagnosticsScheduler diagnosticsScheduler;
+
+    public WorkspaceManager(DiagnosticsScheduler diagnosticsScheduler) {
+        this.diagnosticsScheduler = diagnosticsScheduler;
+    }
 
     public Document openAsRead(TextDocumentIdentifier textDocument) {
         Path path = PathUtils.toPath(textDocument.getUri());
@@ -87,6 +92,7 @@ public class WorkspaceManager {
                     Compilations.loadEnv(env);
                     workspace.add(env);
                     checkDzs(workspace);
+                    diagnosticsScheduler.schedule(env);
                 },
                 () -> logger.warn("Could not find workspace for document: {}", documentPath)
         );
@@ -38,7 +38,7 @@ public class ZenLanguageServer implements LanguageServer, LanguageClientAware {
         L10N.setLocale(params.getLocale());
 
         ServerCapabilities capabilities = new ServerCapabilities();
-        capabilities.setTextDocumentSync(TextDocumentSyncKind.Full);
+        capabilities.setTextDocumentSync(TextDocumentSyncKind.Incremental);
         capabilities.setCompletionProvider(new CompletionOptions(true, List.of(".", ":")));
         capabilities.setDocumentSymbolProvider(true);
         // capabilities.setWorkspaceSymbolProvider(true);
@@ -46,7 +46,7 @@ public class ZenLanguageServer implements LanguageServer, LanguageClientAware {
         // SignatureHelpOptions signatureHelpOptions = new SignatureHelpOptions();
         // signatureHelpOptions.setTriggerCharacters(Arrays.asList("(", ","));
         // capabilities.setSignatureHelpProvider(signatureHelpOptions);
-        // capabilities.setSemanticTokensProvider(new SemanticTokensWithRegistrationOptions(Semantics.SEMANTIC_TOKENS_LEGEND, true));
+        capabilities.setSemanticTokensProvider(new SemanticTokensWithRegistrationOptions(Semantics.SEMANTIC_TOKENS_LEGEND, new SemanticTokensServerFull(true)));
         capabilities.setReferencesProvider(true);
         // capabilities.setDeclarationProvider(true);
         capabilities.setDefinitionProvider(true);
@@ -14,8 +14,13 @@ import raylras.zen.util.Compilations;
 import raylras.zen.util.PathUtils;
 
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.function.Function;
 
 public class ZenLanguageService implements TextDocumentService, WorkspaceService {
 
@@ -23,9 +28,15 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
 
     private static LanguageClient client;
     private final WorkspaceManager workspaceManager;
+    private final TextBuffers textBuffers;
+    private final ReparseScheduler reparseScheduler;
+    private final DiagnosticsScheduler diagnosticsScheduler;
 
     public ZenLanguageService() {
-        this.workspaceManager = new WorkspaceManager();
+        this.diagnosticsScheduler = new DiagnosticsScheduler();
+        this.workspaceManager = new WorkspaceManager(diagnosticsScheduler);
+        this.textBuffers = new TextBuffers();
+        this.reparseScheduler = new ReparseScheduler(workspaceManager, diagnosticsScheduler);
     }
 
     /* Text Document Service */
@@ -33,7 +44,26 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
     @Override
     public void didOpen(DidOpenTextDocumentParams params) {
         try {
-            workspaceManager.createEnvIfNotExists(params.getTextDocument().getUri());
+            String uri = params.getTextDocument().getUri();
+            String text = params.getTextDocument().getText();
+            workspaceManager.createEnvIfNotExists(uri);
+            textBuffers.open(uri, text);
+            // the unit was loaded from the file, the editor may have unsaved changes
+            workspaceManager.getEnv(uri).ifPresent(env -> {
+                WriteLock writeLock = env.writeLock();
+                writeLock.lock();
+                try {
+                    CompilationUnit unit = env.getUnit(PathUtils.toPath(uri));
+                    if (unit != null) {
+                        Set<CompilationUnit> affectedUnits = DiagnosticsScheduler.getAffectedUnits(unit);
+                        Compilations.loadUnit(unit, text);
+                        affectedUnits.addAll(DiagnosticsScheduler.getAffectedUnits(unit));
+                        diagnosticsScheduler.schedule(affectedUnits);
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            });
         } catch (Exception e) {
             logger.error("Failed to process 'didOpen' event: {}", params, e);
         }
@@ -41,9 +71,13 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
 
     @Override
     public void didChange(DidChangeTextDocumentParams params) {
-        try (Document doc = workspaceManager.openAsWrite(params.getTextDocument())){
-            String source = params.getContentChanges().get(0).getText();
-            Compilations.reload(doc, source);
+        try {
+            String uri = params.getTextDocument().getUri();
+            int version = params.getTextDocument().getVersion();
+            textBuffers.change(uri, params.getContentChanges()).ifPresentOrElse(
+                    update -> reparseScheduler.schedule(uri, version, update),
+                    () -> logger.warn("Received incremental changes for a document that was never opened: {}", uri)
+            );
         } catch (Exception e) {
             logger.error("Failed to process 'didChange' event: {}", params, e);
         }
@@ -51,6 +85,9 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
 
     @Override
     public void didClose(DidCloseTextDocumentParams params) {
+        textBuffers.close(params.getTextDocument().getUri());
+        reparseScheduler.remove(params.getTextDocument().getUri());
+        SemanticTokensProvider.remove(params.getTextDocument().getUri());
     }
 
     @Override
@@ -59,62 +96,65 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
 
     @Override
     public CompletableFuture<SemanticTokens> semanticTokensFull(SemanticTokensParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())){
-            return SemanticTokensProvider.semanticTokensFull(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'semanticTokensFull' request: {}", params, e);
-            return SemanticTokensProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> SemanticTokensProvider.semanticTokensFull(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'semanticTokensFull' request: {}", params, e);
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Either<SemanticTokens, SemanticTokensDelta>> semanticTokensFullDelta(SemanticTokensDeltaParams params) {
+        return read(params.getTextDocument(), doc -> SemanticTokensProvider.semanticTokensFullDelta(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'semanticTokensFullDelta' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
     public CompletableFuture<Hover> hover(HoverParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())) {
-            return HoverProvider.hover(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'hover' request: {}", params, e);
-            return HoverProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> HoverProvider.hover(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'hover' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
     public CompletableFuture<Either<List<? extends Location>, List<? extends LocationLink>>> definition(DefinitionParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())){
-            return DefinitionProvider.definition(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'definition' request: {}", params, e);
-            return DefinitionProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> DefinitionProvider.definition(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'definition' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
     public CompletableFuture<List<? extends Location>> references(ReferenceParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())){
-            return ReferencesProvider.references(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'documentSymbol' request: {}", params, e);
-            return ReferencesProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> ReferencesProvider.references(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'documentSymbol' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
     public CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> documentSymbol(DocumentSymbolParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())) {
-            return DocumentSymbolProvider.documentSymbol(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'documentSymbol' request: {}", params, e);
-            return DocumentSymbolProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> DocumentSymbolProvider.documentSymbol(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'documentSymbol' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
     public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
-        try (Document doc = workspaceManager.openAsRead(params.getTextDocument())) {
-            return CompletionProvider.completion(doc, params);
-        } catch (Exception e) {
-            logger.error("Failed to process 'completion' request: {}", params, e);
-            return CompletionProvider.empty();
-        }
+        return read(params.getTextDocument(), doc -> CompletionProvider.completion(doc, params))
+                .exceptionally(e -> {
+                    logger.error("Failed to process 'completion' request: {}", params, e);
+                    return null;
+                });
     }
 
     @Override
@@ -137,18 +177,43 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
                 workspaceManager.createEnvIfNotExists(event.getUri());
                 workspaceManager.getEnv(event.getUri()).ifPresent(env -> {
                     Path documentPath = PathUtils.toPath(event.getUri());
-                    switch (event.getType()) {
-                        case Created -> {
-                            CompilationUnit unit = env.createUnit(documentPath);
-                            Compilations.loadUnit(unit);
-                        }
-                        case Changed -> {
-                            CompilationUnit unit = env.getUnit(documentPath);
-                            Compilations.loadUnit(unit);
-                        }
-                        case Deleted -> {
-                            env.removeUnit(documentPath);
+                    WriteLock writeLock = env.writeLock();
+                    writeLock.lock();
+                    try {
+                        switch (event.getType()) {
+                            case Created -> {
+                                CompilationUnit unit = env.createUnit(documentPath);
+                                Compilations.loadUnit(unit);
+                                diagnosticsScheduler.schedule(DiagnosticsScheduler.getAffectedUnits(unit));
+                            }
+                            case Changed -> {
+                                // the editor buffer of an opened document is newer than the file
+                                if (textBuffers.get(event.getUri()).isEmpty()) {
+                                    CompilationUnit unit = env.getUnit(documentPath);
+                                    Set<CompilationUnit> affectedUnits = new HashSet<>();
+                                    if (unit != null) {
+                                        affectedUnits.addAll(DiagnosticsScheduler.getAffectedUnits(unit));
+                                    } else {
+                                        // the file was not known to the env, as if it had been created
+                                        unit = env.createUnit(documentPath);
+                                    }
+                                    Compilations.loadUnit(unit);
+                                    affectedUnits.addAll(DiagnosticsScheduler.getAffectedUnits(unit));
+                                    diagnosticsScheduler.schedule(affectedUnits);
+                                }
+                            }
+                            case Deleted -> {
+                                CompilationUnit unit = env.getUnit(documentPath);
+                                if (unit != null) {
+                                    Set<CompilationUnit> dependents = env.getDependencyGraph().getTransitiveDependents(unit);
+                                    env.removeUnit(documentPath);
+                                    diagnosticsScheduler.clear(unit);
+                                    diagnosticsScheduler.schedule(dependents);
+                                }
+                            }
                         }
+                    } finally {
+                        writeLock.unlock();
                     }
                 });
             } catch (Exception e) {
@@ -185,6 +250,12 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
         }
     }
 
+    public static void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+        if (client != null) {
+            client.publishDiagnostics(diagnostics);
+        }
+    }
+
     public void initializeWorkspaces(List<WorkspaceFolder> workspaces) {
         if (workspaces != null) {
             workspaces.forEach(workspace -> {
@@ -194,4 +265,21 @@ public class ZenLanguageService implements TextDocumentService, WorkspaceService
         }
     }
 
+    /* Private Methods */
+
+    /**
+     * Runs the provider on the newest version of the document, holding the read lock until the result is ready.
+     */
+    private <T> CompletableFuture<T> read(TextDocumentIdentifier textDocument, Function<Document, CompletableFuture<T>> provider) {
+        return reparseScheduler.awaitParsed(textDocument.getUri()).thenApplyAsync(ignored -> {
+            try (Document doc = workspaceManager.openAsRead(textDocument)) {
+                return provider.apply(doc).join();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /* End Private Methods */
+
 }
@@ -59,8 +59,8 @@ public final class CompletionProvider {
 
         private CompletionVisitor(CompilationUnit unit, CompletionParams params) {
             this.cursor = Position.of(params.getPosition());
-            this.tailing = CSTNodes.getCstAtPosition(unit.getParseTree(), cursor);
-            this.leading = CSTNodes.getPrevTerminal(unit.getTokenStream(), tailing);
+            this.tailing = unit.getPositionIndex().getCstAtPosition(cursor);
+            this.leading = unit.getPositionIndex().getPrevTerminal(tailing);
             this.text = tailing.getText();
             this.unit = unit;
         }
@@ -487,8 +487,7 @@ public final class CompletionProvider {
         }
 
         private void completeImports(String text) {
-            PackageTree<ClassType> tree = PackageTree.of(".", unit.getEnv().getClassTypeMap());
-            tree.complete(text).forEach((key, subTree) -> {
+            unit.getEnv().getPackageTree().complete(text).forEach((key, subTree) -> {
                 CompletionItem completionItem = new CompletionItem(key);
                 completionItem.setKind(subTree.hasElement() ? CompletionItemKind.Class : CompletionItemKind.Module);
                 completionList.add(completionItem);
@@ -11,7 +11,6 @@ import raylras.zen.model.resolve.SymbolResolver;
 import raylras.zen.model.symbol.ParseTreeLocatable;
 import raylras.zen.model.symbol.Symbol;
 import raylras.zen.model.Document;
-import raylras.zen.util.CSTNodes;
 import raylras.zen.util.Position;
 import raylras.zen.util.Range;
 
@@ -26,7 +25,7 @@ public class DefinitionProvider {
     public static CompletableFuture<Either<List<? extends Location>, List<? extends LocationLink>>> definition(Document doc, DefinitionParams params) {
         return doc.getUnit().map(unit -> CompletableFuture.supplyAsync(() -> {
             Position cursor = Position.of(params.getPosition());
-            ParseTree cst = CSTNodes.getCstAtPosition(unit.getParseTree(), cursor);
+            ParseTree cst = unit.getPositionIndex().getCstAtPosition(cursor);
             org.eclipse.lsp4j.Range originSelectionRange = Range.of(cst).toLspRange();
             Collection<Symbol> symbols = SymbolResolver.lookupSymbol(cst, unit);
             return Either.<List<? extends Location>, List<? extends LocationLink>>forRight(symbols.stream()
@@ -0,0 +1,155 @@
+package raylras.zen.lsp.provider;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.model.Listener;
+import raylras.zen.model.parser.ZenScriptParser.*;
+import raylras.zen.model.resolve.TypeResolver;
+import raylras.zen.model.scope.Scope;
+import raylras.zen.model.symbol.Executable;
+import raylras.zen.model.type.AnyType;
+import raylras.zen.model.type.Type;
+import raylras.zen.util.Executables;
+import raylras.zen.util.Overloads;
+import raylras.zen.util.Ranges;
+import raylras.zen.util.SyntaxError;
+import raylras.zen.util.l10n.L10N;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the syntax errors recorded while parsing, followed by the semantic problems:
+ * unresolved names, calls matching no overload and casts between unrelated types.
+ * <p>
+ * The types are inferred on a best-effort basis, so the semantic problems are only warnings,
+ * and nothing is reported about an expression whose type could not be inferred.
+ */
+public class DiagnosticsProvider extends Listener {
+
+    private static final String SOURCE = "zenscript";
+
+    /**
+     * @param cancelled checked while walking the unit, a cancelled check throws {@link CancellationException}
+     */
+    public static List<Diagnostic> diagnose(CompilationUnit unit, BooleanSupplier cancelled) {
+        DiagnosticsProvider provider = new DiagnosticsProvider(unit, cancelled);
+        for (SyntaxError error : unit.getSyntaxErrors()) {
+            provider.diagnostics.add(new Diagnostic(error.range().toLspRange(), error.message(), DiagnosticSeverity.Error, SOURCE));
+        }
+        if (unit.getParseTree() != null) {
+            unit.accept(provider);
+        }
+        return provider.diagnostics;
+    }
+
+    private final CompilationUnit unit;
+    private final CompilationEnvironment env;
+    private final BooleanSupplier cancelled;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    // the globals are declared by the .dzs files, without them most of the names cannot be resolved
+    private final boolean checkNames;
+    // the first names of the qualified names of the units, collected on the first name that cannot be resolved
+    private Set<String> unitPackages;
+
+    private DiagnosticsProvider(CompilationUnit unit, BooleanSupplier cancelled) {
+        this.unit = unit;
+        this.env = unit.getEnv();
+        this.cancelled = cancelled;
+        this.checkNames = Files.isDirectory(env.getGeneratedRoot());
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Diagnosing of " + unit + " has been cancelled");
+        }
+    }
+
+    @Override
+    public void enterSimpleNameExpr(SimpleNameExprContext ctx) {
+        if (checkNames && !isResolvable(ctx, ctx.simpleName().getText())) {
+            warn(ctx, String.format(L10N.getString("diagnostics.cannot_find_symbol"), ctx.simpleName().getText()));
+        }
+    }
+
+    @Override
+    public void enterCallExpr(CallExprContext ctx) {
+        if (!(ctx.expression() instanceof MemberAccessExprContext memberAccessExpr) || memberAccessExpr.simpleName() == null) {
+            return;
+        }
+        Type owner = TypeResolver.getType(memberAccessExpr.expression(), unit);
+        if (owner instanceof AnyType) {
+            return;
+        }
+        String name = memberAccessExpr.simpleName().getText();
+        Overloads overloads = env.getOverloads(owner, name);
+        if (overloads.getExecutables().isEmpty()) {
+            return;
+        }
+        List<Type> argumentTypes = new ArrayList<>();
+        for (ExpressionContext argument : ctx.expressionList().expression()) {
+            argumentTypes.add(TypeResolver.getType(argument, unit));
+        }
+        for (Executable executable : overloads.getExecutables(argumentTypes.size())) {
+            if (Executables.areArgumentsMatch(executable, argumentTypes, env)) {
+                return;
+            }
+        }
+        String arguments = argumentTypes.stream().map(Type::toString).collect(Collectors.joining(", "));
+        warn(memberAccessExpr.simpleName(), String.format(L10N.getString("diagnostics.no_matching_overload"), name, arguments));
+    }
+
+    @Override
+    public void enterTypeCastExpr(TypeCastExprContext ctx) {
+        Type from = TypeResolver.getType(ctx.expression(), unit);
+        Type to = TypeResolver.getType(ctx.typeLiteral(), unit);
+        if (from instanceof AnyType || to instanceof AnyType) {
+            return;
+        }
+        // casting down to a subtype is checked at runtime
+        if (!from.isCastableTo(to, env) && !to.isInheritedFrom(from)) {
+            warn(ctx, String.format(L10N.getString("diagnostics.cannot_cast"), from, to));
+        }
+    }
+
+    private boolean isResolvable(ParseTree cst, String name) {
+        Scope scope = unit.lookupScope(cst);
+        if (scope != null && scope.lookupSymbol(name) != null) {
+            return true;
+        }
+        return !env.getGlobalSymbols(name).isEmpty()
+                || !env.getPackageTree().get(name).isEmpty()
+                || isUnitPackage(name);
+    }
+
+    // the scripts are referenced by their qualified names, such as scripts.foo.bar()
+    private boolean isUnitPackage(String name) {
+        if (unitPackages == null) {
+            unitPackages = new HashSet<>();
+            for (CompilationUnit other : env.getUnits()) {
+                String qualifiedName = other.getQualifiedName();
+                int dot = qualifiedName.indexOf('.');
+                if (dot > 0) {
+                    unitPackages.add(qualifiedName.substring(0, dot));
+                }
+            }
+        }
+        return unitPackages.contains(name);
+    }
+
+    private void warn(ParseTree cst, String message) {
+        diagnostics.add(new Diagnostic(Ranges.toLspRange(cst), message, DiagnosticSeverity.Warning, SOURCE));
+    }
+
+}
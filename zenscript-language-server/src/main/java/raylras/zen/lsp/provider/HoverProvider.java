@@ -10,7 +10,6 @@ import raylras.zen.bracket.BracketHandlerService;
 import raylras.zen.model.Visitor;
 import raylras.zen.model.parser.ZenScriptParser.BracketHandlerExprContext;
 import raylras.zen.model.Document;
-import raylras.zen.util.CSTNodes;
 import raylras.zen.util.Position;
 import raylras.zen.util.Ranges;
 
@@ -24,7 +23,7 @@ public class HoverProvider {
     public static CompletableFuture<Hover> hover(Document doc, HoverParams params) {
         return doc.getUnit().map(unit -> CompletableFuture.supplyAsync(() -> {
             Position cursor = Position.of(params.getPosition());
-            Deque<ParseTree> cstStack = CSTNodes.getCstStackAtPosition(unit.getParseTree(), cursor);
+            Deque<ParseTree> cstStack = unit.getPositionIndex().getCstStackAtPosition(cursor);
             HoverVisitor visitor = new HoverVisitor(unit.getEnv().getBracketHandlerService());
             for (ParseTree cst : cstStack) {
                 Hover hover = cst.accept(visitor);
@@ -167,7 +167,7 @@ public class ReferencesProvider {
     }
 
     private static Symbol getSymbolOnCursor(CompilationUnit unit, Position cursor) {
-        Deque<ParseTree> cstStack = CSTNodes.getCstStackAtPosition(unit.getParseTree(), cursor);
+        Deque<ParseTree> cstStack = unit.getPositionIndex().getCstStackAtPosition(cursor);
 
         for (ParseTree cst : cstStack) {
             if (cst instanceof CompilationUnit) {
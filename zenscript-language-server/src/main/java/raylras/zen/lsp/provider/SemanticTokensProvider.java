@@ -1,31 +1,107 @@
 package raylras.zen.lsp.provider;
 
-import org.eclipse.lsp4j.SemanticTokens;
-import org.eclipse.lsp4j.SemanticTokensParams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.eclipse.lsp4j.*;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import raylras.zen.lsp.Semantics;
+import raylras.zen.lsp.Semantics.TokenModifier;
+import raylras.zen.lsp.Semantics.TokenType;
 import raylras.zen.model.CompilationUnit;
-import raylras.zen.model.Listener;
 import raylras.zen.model.Document;
+import raylras.zen.model.Listener;
+import raylras.zen.model.parser.ZenScriptParser.*;
+import raylras.zen.model.resolve.TypeResolver;
+import raylras.zen.model.scope.Scope;
+import raylras.zen.model.symbol.Symbol;
+import raylras.zen.model.type.ClassType;
+import raylras.zen.util.PathUtils;
 import raylras.zen.util.Range;
+import raylras.zen.util.Symbols;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Highlights the names by the symbols they refer to.
+ * <p>
+ * The tokens of a unit are encoded into a packed int array and cached until the unit or its dependencies change,
+ * so a delta request only sends the range of integers that differ from the previous result.
+ */
 public class SemanticTokensProvider extends Listener {
 
+    private static final Map<Path, Result> previousResults = new ConcurrentHashMap<>();
+    private static final AtomicLong resultIds = new AtomicLong();
+
     public static CompletableFuture<SemanticTokens> semanticTokensFull(Document doc, SemanticTokensParams params) {
         return doc.getUnit().map(unit -> CompletableFuture.supplyAsync(() -> {
-            SemanticTokensProvider provider = new SemanticTokensProvider(unit);
-            return new SemanticTokens(provider.data);
+            Result result = getResult(unit);
+            return new SemanticTokens(result.id(), IntList.of(result.data(), 0, result.data().length));
+        })).orElseGet(SemanticTokensProvider::empty);
+    }
+
+    public static CompletableFuture<Either<SemanticTokens, SemanticTokensDelta>> semanticTokensFullDelta(Document doc, SemanticTokensDeltaParams params) {
+        return doc.getUnit().map(unit -> CompletableFuture.supplyAsync(() -> {
+            Result previous = previousResults.get(unit.getPath());
+            Result result = getResult(unit);
+            if (previous == null || !previous.id().equals(params.getPreviousResultId())) {
+                return Either.<SemanticTokens, SemanticTokensDelta>forLeft(new SemanticTokens(result.id(), IntList.of(result.data(), 0, result.data().length)));
+            }
+            return Either.<SemanticTokens, SemanticTokensDelta>forRight(new SemanticTokensDelta(diff(previous.data(), result.data()), result.id()));
         })).orElseGet(SemanticTokensProvider::empty);
     }
 
-    public static CompletableFuture<SemanticTokens> empty() {
+    public static <T> CompletableFuture<T> empty() {
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Forgets the tokens of a closed document.
+     */
+    public static void remove(String uri) {
+        previousResults.remove(PathUtils.toPath(uri));
+    }
+
+    private static Result getResult(CompilationUnit unit) {
+        Result previous = previousResults.get(unit.getPath());
+        long typeStamp = unit.getTypeStamp();
+        if (previous != null && previous.unit() == unit && previous.typeStamp() == typeStamp) {
+            return previous;
+        }
+        SemanticTokensProvider provider = new SemanticTokensProvider(unit);
+        unit.accept(provider);
+        Result result = new Result(unit, typeStamp, String.valueOf(resultIds.incrementAndGet()), Arrays.copyOf(provider.data, provider.size));
+        previousResults.put(unit.getPath(), result);
+        return result;
+    }
+
+    /**
+     * Replaces the integers between the common prefix and the common suffix, which is a single edit for a single change.
+     */
+    private static List<SemanticTokensEdit> diff(int[] previous, int[] current) {
+        int prefix = 0;
+        int maxPrefix = Math.min(previous.length, current.length);
+        while (prefix < maxPrefix && previous[prefix] == current[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && previous[previous.length - 1 - suffix] == current[current.length - 1 - suffix]) {
+            suffix++;
+        }
+        int deleteCount = previous.length - prefix - suffix;
+        int insertEnd = current.length - suffix;
+        if (deleteCount == 0 && insertEnd == prefix) {
+            return List.of();
+        }
+        return List.of(new SemanticTokensEdit(prefix, deleteCount, IntList.of(current, prefix, insertEnd)));
+    }
+
     private final CompilationUnit unit;
-    private final List<Integer> data = new ArrayList<>();
+    private int[] data = new int[256];
+    private int size;
     private int prevLine = Range.FIRST_LINE;
     private int prevColumn = Range.FIRST_COLUMN;
 
@@ -33,6 +109,80 @@ public class SemanticTokensProvider extends Listener {
         this.unit = unit;
     }
 
+    // the names are entered in the order of the source, as required by the relative encoding
+    @Override
+    public void enterSimpleName(SimpleNameContext ctx) {
+        ParserRuleContext parent = ctx.getParent();
+        Symbol symbol;
+        boolean definition = false;
+        if (parent instanceof SimpleNameExprContext) {
+            symbol = lookupSymbol(parent, ctx.getText());
+        } else if (parent instanceof MemberAccessExprContext memberAccessExpr) {
+            symbol = lookupMember(memberAccessExpr, ctx.getText());
+        } else if (parent instanceof QualifiedNameContext qualifiedName) {
+            symbol = lookupClass(qualifiedName, ctx);
+        } else {
+            symbol = unit.getSymbol(parent);
+            definition = true;
+        }
+        if (symbol == null) {
+            return;
+        }
+        TokenType tokenType = getTokenType(symbol);
+        if (tokenType == null) {
+            return;
+        }
+        int tokenModifiers = Semantics.getTokenModifiers(symbol.getModifier());
+        if (!definition) {
+            tokenModifiers &= ~TokenModifier.DEFINITION.flag;
+        }
+        push(Range.of(ctx), tokenType.ordinal(), tokenModifiers);
+    }
+
+    private Symbol lookupSymbol(ParserRuleContext cst, String name) {
+        Scope scope = unit.lookupScope(cst);
+        Symbol symbol = (scope != null) ? scope.lookupSymbol(name) : null;
+        if (symbol == null) {
+            List<Symbol> globals = unit.getEnv().getGlobalSymbols(name);
+            if (!globals.isEmpty()) {
+                symbol = globals.get(globals.size() - 1);
+            }
+        }
+        return symbol;
+    }
+
+    private Symbol lookupMember(MemberAccessExprContext ctx, String name) {
+        List<Symbol> members = Symbols.getMembersByName(TypeResolver.getType(ctx.expression(), unit), name, Symbol.class, unit.getEnv());
+        return members.isEmpty() ? null : members.get(0);
+    }
+
+    // only the last name of an import or a type refers to a class, the others are packages
+    private Symbol lookupClass(QualifiedNameContext qualifiedName, SimpleNameContext name) {
+        List<SimpleNameContext> names = qualifiedName.simpleName();
+        if (names.get(names.size() - 1) != name) {
+            return null;
+        }
+        if (qualifiedName.getParent() instanceof ImportDeclarationContext) {
+            return unit.getEnv().getClassSymbol(qualifiedName.getText());
+        }
+        if (qualifiedName.getParent() instanceof ClassTypeContext classType
+                && TypeResolver.getType(classType, unit) instanceof ClassType type) {
+            return type.getSymbol();
+        }
+        return null;
+    }
+
+    private static TokenType getTokenType(Symbol symbol) {
+        return switch (symbol.getKind()) {
+            case CLASS -> TokenType.CLASS;
+            case VARIABLE -> TokenType.VARIABLE;
+            case PARAMETER -> TokenType.PARAMETER;
+            case FUNCTION -> TokenType.FUNCTION;
+            case IMPORT -> (symbol.getType() instanceof ClassType) ? TokenType.CLASS : null;
+            default -> null;
+        };
+    }
+
     private void push(Range range, int tokenType, int tokenModifiers) {
         if (range == null) return;
         int line = range.start().line() - prevLine;
@@ -40,11 +190,47 @@ public class SemanticTokensProvider extends Listener {
         int length = range.end().column() - range.start().column();
         prevLine = range.start().line();
         prevColumn = range.start().column();
-        data.add(line);
-        data.add(column);
-        data.add(length);
-        data.add(tokenType);
-        data.add(tokenModifiers);
+        if (size + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = line;
+        data[size++] = column;
+        data[size++] = length;
+        data[size++] = tokenType;
+        data[size++] = tokenModifiers;
+    }
+
+    private record Result(CompilationUnit unit, long typeStamp, String id, int[] data) {
+    }
+
+    /**
+     * A read-only view of a range of the packed integers, which are only boxed while being serialized.
+     */
+    private static final class IntList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] data;
+        private final int from;
+        private final int to;
+
+        private IntList(int[] data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        static IntList of(int[] data, int from, int to) {
+            return new IntList(data, from, to);
+        }
+
+        @Override
+        public Integer get(int index) {
+            Objects.checkIndex(index, size());
+            return data[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
     }
 
 }
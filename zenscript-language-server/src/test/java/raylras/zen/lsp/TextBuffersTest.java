@@ -0,0 +1,101 @@
+package raylras.zen.lsp;
+
+import org.antlr.v4.runtime.tree.Trees;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import raylras.zen.model.CompilationEnvironment;
+import raylras.zen.model.CompilationUnit;
+import raylras.zen.model.Document;
+import raylras.zen.model.parser.ZenScriptParser;
+import raylras.zen.util.Compilations;
+import raylras.zen.util.Range;
+import raylras.zen.util.Rope;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+class TextBuffersTest {
+
+    static final String SOURCE = """
+            import crafttweaker.item.IItemStack;
+
+            function foo(a as int) as int {
+                var b = a + 1;
+                return b;
+            }
+
+            var bar = foo(1); val baz = "baz";
+            """;
+
+    @ParameterizedTest
+    @MethodSource("change")
+    void change(List<String[]> edits, boolean incremental, @TempDir Path tempDir) throws IOException {
+        // the documents are identified by the real paths of their files
+        Path path = Files.writeString(Files.createDirectories(tempDir.resolve("scripts")).resolve("test.zs"), SOURCE);
+        String uri = path.toUri().toString();
+        TextBuffers textBuffers = new TextBuffers();
+        textBuffers.open(uri, SOURCE);
+        CompilationUnit unit = loadUnit(path, SOURCE);
+
+        // the ranges of the events are relative to the text after the previous events
+        List<TextDocumentContentChangeEvent> changes = new ArrayList<>();
+        Rope text = Rope.of(SOURCE);
+        for (String[] edit : edits) {
+            int start = text.toString().indexOf(edit[0]);
+            Range range = new Range(text.getPosition(start), text.getPosition(start + edit[0].length()));
+            changes.add(new TextDocumentContentChangeEvent(range.toLspRange(), edit[1]));
+            text = text.replace(start, start + edit[0].length(), edit[1]);
+        }
+        System.out.printf("test: apply %d change(s), expected incremental: %s%n", changes.size(), incremental);
+
+        TextBuffers.Update update = textBuffers.change(uri, changes).orElseThrow();
+        Assertions.assertEquals(text.toString(), update.buffer().toString());
+        Document doc = new Document() {
+            @Override
+            public Optional<CompilationUnit> getUnit() {
+                return Optional.of(unit);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Assertions.assertEquals(incremental, Compilations.reparse(doc, update.buffer().toString(), update.change()));
+        if (!incremental) {
+            Compilations.reload(doc, update.buffer().toString());
+        }
+        List<String> ruleNames = List.of(ZenScriptParser.ruleNames);
+        Assertions.assertEquals(
+                Trees.toStringTree(loadUnit(path, text.toString()).getParseTree(), ruleNames),
+                Trees.toStringTree(unit.getParseTree(), ruleNames)
+        );
+    }
+
+    static Stream<Arguments> change() {
+        return Stream.of(
+                Arguments.of(List.<String[]>of(new String[]{"a + 1", "a * 2 + 1"}), true),
+                Arguments.of(List.<String[]>of(new String[]{"\"baz\"", "\"qux\""}), true),
+                // typing character by character
+                Arguments.of(List.<String[]>of(new String[]{"return b", "return b "}, new String[]{"return b ", "return b +"}, new String[]{"return b +", "return b + a"}), true),
+                // edits in different elements
+                Arguments.of(List.<String[]>of(new String[]{"a + 1", "a + 2"}, new String[]{"foo(1)", "foo(2)"}), false)
+        );
+    }
+
+    static CompilationUnit loadUnit(Path path, String source) {
+        CompilationEnvironment env = new CompilationEnvironment(path.getParent());
+        CompilationUnit unit = env.createUnit(path);
+        Compilations.loadUnit(unit, source);
+        return unit;
+    }
+
+}